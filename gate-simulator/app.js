@@ -5,6 +5,22 @@ const uuidv4 = require('uuid/v4');
 const data = JSON.parse(fs.readFileSync('data.json', 'UTF-8'));
 console.log(data);
 
+// Журнал последних запросов: по нему тест узнает, какой id получила его покупка
+const JOURNAL_SIZE = Number(process.env.JOURNAL_SIZE || 10000);
+const CARD_FIELDS = ['number', 'month', 'year', 'holder', 'cvc'];
+const journal = [];
+let lastSeq = 0;
+
+function record(req, id, code) {
+  const entry = {seq: ++lastSeq, path: req.path, id, code};
+  CARD_FIELDS.filter(field => req.body[field] !== undefined && req.body[field] !== null)
+    .forEach(field => entry[field] = String(req.body[field]));
+  journal.push(entry);
+  if (journal.length > JOURNAL_SIZE) {
+    journal.shift();
+  }
+}
+
 const server = express();
 server.use(express.json());
 
@@ -14,15 +30,31 @@ server.post(['/payment', '/credit'], (req, res) => {
 
   const [item] = data.filter(o => o.number === number);
   if (item === undefined) {
+    record(req, null, 400);
     res.status(400).end();
     return;
   }
 
+  const id = uuidv4();
+  record(req, id, 200);
   res.send({
-    id: uuidv4(),
+    id,
     status: item.status,
   });
 });
 
+// GET /requests?after=N — запросы журнала с номером больше N и номер последнего; без after — только номер
+server.get('/requests', (req, res) => {
+  const after = req.query.after === undefined ? undefined : Number(req.query.after);
+  if (Number.isNaN(after)) {
+    res.status(400).end();
+    return;
+  }
+  res.send({
+    last: lastSeq,
+    requests: after === undefined ? [] : journal.filter(entry => entry.seq > after),
+  });
+});
+
 // get port from environment variable or just use 9999
 server.listen(process.env.PORT || 9999);
@@ -0,0 +1,96 @@
+package ru.netology.web.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.netology.web.data.DataHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность генераторов DataHelper в одном потоке.
+ * Аллокации на операцию показывает профайлер gc (включен в build.gradle).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class DataHelperBenchmark {
+
+    @Benchmark
+    public String cardNumberApproved() {
+        return DataHelper.getCardNumberByStatus("APPROVED");
+    }
+
+    @Benchmark
+    public String cardNumberFifteen() {
+        return DataHelper.getCardNumberByStatus("FIFTEEN");
+    }
+
+    @Benchmark
+    public String monthPlus() {
+        return DataHelper.generateMonthPlus(0);
+    }
+
+    @Benchmark
+    public String zero() {
+        return DataHelper.getZero();
+    }
+
+    @Benchmark
+    public String monthOver() {
+        return DataHelper.getMonthOver();
+    }
+
+    @Benchmark
+    public String monthOneDig() {
+        return DataHelper.getMonthOneDig();
+    }
+
+    @Benchmark
+    public String yearPlus() {
+        return DataHelper.generateYearPlus(1);
+    }
+
+    @Benchmark
+    public String holder() {
+        return DataHelper.generateHolder();
+    }
+
+    @Benchmark
+    public String holderCyrillic() {
+        return DataHelper.generateHolderCyrillic();
+    }
+
+    @Benchmark
+    public String holderNumeric() {
+        return DataHelper.generateHolderNumeric();
+    }
+
+    @Benchmark
+    public String holderOneSymbol() {
+        return DataHelper.generateHolderOneSymbol();
+    }
+
+    @Benchmark
+    public String holderSpecChar() {
+        return DataHelper.generateHolderSpecChar(6);
+    }
+
+    @Benchmark
+    public String cvc() {
+        return DataHelper.generateCVC(3);
+    }
+
+    @Benchmark
+    public DataHelper.CardInfo validCard() {
+        return DataHelper.generateValidCard("APPROVED");
+    }
+}
@@ -0,0 +1,11 @@
+package ru.netology.web.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Те же генераторы во всех доступных потоках: проверяет, что DataEngine масштабируется без общей блокировки —
+ * у каждого потока свой SplittableRandom, а пулы имен и номеров только читаются.
+ */
+@Threads(Threads.MAX)
+public class DataHelperMultiThreadBenchmark extends DataHelperBenchmark {
+}
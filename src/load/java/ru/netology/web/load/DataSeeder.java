@@ -0,0 +1,222 @@
+package ru.netology.web.load;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import ru.netology.web.data.Dialect;
+import ru.netology.web.data.SQLHelper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Наполнение таблиц историей покупок для прогонов на объемах, близких к боевым.
+ * Строки строятся как сущности SQLHelper и связаны так же, как их связывает приложение:
+ * order_entity.payment_id = payment_entity.transaction_id, а для кредита
+ * order_entity.payment_id = credit_request_entity.bank_id и order_entity.credit_id = credit_request_entity.id.
+ * created равномерно распределен по seed.days дней до запуска; ChangeFeed начинает с MAX(created) и историю
+ * не читает, а PurchaseScope ищет строки только по id, который шлюз выдал его покупке.
+ * В PostgreSQL строки по умолчанию заливаются через COPY, в MySQL — пакетами INSERT, которые драйвер
+ * склеивает в многострочные; каждая порция seed.chunk покупок — отдельная транзакция.
+ */
+public class DataSeeder {
+    private static final String PAYMENT_COLUMNS = "payment_entity (id, amount, created, status, transaction_id)";
+    private static final String CREDIT_COLUMNS = "credit_request_entity (id, bank_id, created, status)";
+    private static final String ORDER_COLUMNS = "order_entity (id, created, credit_id, payment_id)";
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SeedConfig config;
+    private final Dialect dialect;
+    private final SplittableRandom random;
+    private final long historyEnd = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1);
+
+    public DataSeeder(SeedConfig config, Dialect dialect) {
+        this.config = config;
+        this.dialect = dialect;
+        this.random = new SplittableRandom(config.getRandomSeed());
+        if (config.getMethod() == SeedConfig.Method.COPY && dialect != Dialect.POSTGRES) {
+            throw new IllegalArgumentException("COPY доступен только для PostgreSQL");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Dialect dialect = Dialect.fromUrl(System.getProperty("db.url"));
+        SeedConfig config = SeedConfig.fromSystemProperties(dialect == Dialect.POSTGRES);
+        String report;
+        try (Connection conn = DriverManager.getConnection(dialect.withBatchInserts(System.getProperty("db.url")),
+                System.getProperty("db.user"), System.getProperty("db.password"))) {
+            report = new DataSeeder(config, dialect).run(conn);
+        }
+        System.out.println(report);
+        Path out = Paths.get(System.getProperty("seed.report", "build/reports/seed/seed-report.txt"));
+        Files.createDirectories(out.getParent());
+        Files.write(out, report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String run(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        long start = System.nanoTime();
+        long lastProgress = start;
+        long payments = 0;
+        long credits = 0;
+        long orders = 0;
+        for (long done = 0; done < config.getPurchases(); ) {
+            int size = (int) Math.min(config.getChunkSize(), config.getPurchases() - done);
+            Chunk chunk = generate(size);
+            if (config.getMethod() == SeedConfig.Method.COPY) {
+                copy(conn, chunk);
+            } else {
+                batch(conn, chunk);
+            }
+            conn.commit();
+            done += size;
+            payments += chunk.payments.size();
+            credits += chunk.credits.size();
+            orders += chunk.orders.size();
+            long now = System.nanoTime();
+            if (now - lastProgress >= PROGRESS_INTERVAL_NANOS || done == config.getPurchases()) {
+                System.out.println(progress(done, payments + credits + orders, now - start));
+                lastProgress = now;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long rows = payments + credits + orders;
+        return String.format(Locale.ROOT, "method=%s dialect=%s purchases=%d chunk=%d%n"
+                        + "payment_entity=%d credit_request_entity=%d order_entity=%d%n"
+                        + "rows=%d time=%.1f s throughput=%.0f rows/s",
+                config.getMethod(), dialect.getName(), config.getPurchases(), config.getChunkSize(),
+                payments, credits, orders, rows, seconds, rows / seconds);
+    }
+
+    private String progress(long done, long rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        double share = (double) done / config.getPurchases();
+        return String.format(Locale.ROOT, "%5.1f%%  purchases=%d rows=%d  %.0f rows/s  elapsed=%.0f s  eta=%.0f s",
+                share * 100, done, rows, rows / seconds, seconds, seconds / share - seconds);
+    }
+
+    private Chunk generate(int size) {
+        Chunk chunk = new Chunk(size);
+        long historyMillis = config.getHistory().toMillis();
+        for (int i = 0; i < size; i++) {
+            Timestamp created = new Timestamp(historyEnd - (long) (random.nextDouble() * historyMillis));
+            Timestamp orderCreated = new Timestamp(created.getTime() + 1 + random.nextInt(50));
+            String status = random.nextDouble() < config.getDeclinedShare() ? "DECLINED" : "APPROVED";
+            if (random.nextDouble() < config.getCreditShare()) {
+                SQLHelper.CreditRequestEntity credit = new SQLHelper.CreditRequestEntity(uuid(), uuid(), created, status);
+                chunk.credits.add(credit);
+                chunk.orders.add(new SQLHelper.OrderEntity(uuid(), orderCreated, credit.getId(), credit.getBank_id()));
+            } else {
+                SQLHelper.PaymentEntity payment = new SQLHelper.PaymentEntity(uuid(), config.getAmount(), created,
+                        status, uuid());
+                chunk.payments.add(payment);
+                chunk.orders.add(new SQLHelper.OrderEntity(uuid(), orderCreated, null, payment.getTransaction_id()));
+            }
+        }
+        return chunk;
+    }
+
+    private void copy(Connection conn, Chunk chunk) throws SQLException {
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        StringBuilder csv = new StringBuilder(chunk.payments.size() * 128);
+        for (SQLHelper.PaymentEntity payment : chunk.payments) {
+            csv.append(payment.getId()).append(',').append(payment.getAmount()).append(',')
+                    .append(payment.getCreated()).append(',').append(payment.getStatus()).append(',')
+                    .append(payment.getTransaction_id()).append('\n');
+        }
+        copyIn(copy, PAYMENT_COLUMNS, csv);
+        csv.setLength(0);
+        for (SQLHelper.CreditRequestEntity credit : chunk.credits) {
+            csv.append(credit.getId()).append(',').append(credit.getBank_id()).append(',')
+                    .append(credit.getCreated()).append(',').append(credit.getStatus()).append('\n');
+        }
+        copyIn(copy, CREDIT_COLUMNS, csv);
+        csv.setLength(0);
+        for (SQLHelper.OrderEntity order : chunk.orders) {
+            csv.append(order.getId()).append(',').append(order.getCreated()).append(',')
+                    .append(order.getCredit_id() == null ? "" : order.getCredit_id()).append(',')
+                    .append(order.getPayment_id()).append('\n');
+        }
+        copyIn(copy, ORDER_COLUMNS, csv);
+    }
+
+    private static void copyIn(CopyManager copy, String columns, StringBuilder csv) throws SQLException {
+        if (csv.length() == 0) {
+            return;
+        }
+        try {
+            copy.copyIn("COPY " + columns + " FROM STDIN WITH (FORMAT csv)", new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("COPY в " + columns + " не выполнен", e);
+        }
+    }
+
+    private static void batch(Connection conn, Chunk chunk) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("INSERT INTO " + PAYMENT_COLUMNS
+                + " VALUES (?, ?, ?, ?, ?)")) {
+            for (SQLHelper.PaymentEntity payment : chunk.payments) {
+                statement.setString(1, payment.getId());
+                statement.setInt(2, payment.getAmount());
+                statement.setTimestamp(3, payment.getCreated());
+                statement.setString(4, payment.getStatus());
+                statement.setString(5, payment.getTransaction_id());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = conn.prepareStatement("INSERT INTO " + CREDIT_COLUMNS
+                + " VALUES (?, ?, ?, ?)")) {
+            for (SQLHelper.CreditRequestEntity credit : chunk.credits) {
+                statement.setString(1, credit.getId());
+                statement.setString(2, credit.getBank_id());
+                statement.setTimestamp(3, credit.getCreated());
+                statement.setString(4, credit.getStatus());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = conn.prepareStatement("INSERT INTO " + ORDER_COLUMNS
+                + " VALUES (?, ?, ?, ?)")) {
+            for (SQLHelper.OrderEntity order : chunk.orders) {
+                statement.setString(1, order.getId());
+                statement.setTimestamp(2, order.getCreated());
+                statement.setString(3, order.getCredit_id());
+                statement.setString(4, order.getPayment_id());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private String uuid() {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least).toString();
+    }
+
+    private static class Chunk {
+        final List<SQLHelper.PaymentEntity> payments;
+        final List<SQLHelper.CreditRequestEntity> credits;
+        final List<SQLHelper.OrderEntity> orders;
+
+        Chunk(int size) {
+            payments = new ArrayList<>(size);
+            credits = new ArrayList<>(size);
+            orders = new ArrayList<>(size);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.netology.web.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EndpointStats {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final String endpoint;
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder successful = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+
+    public EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public void recordResponse(int statusCode, long latencyNanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        (statusCode == 200 ? successful : failed).increment();
+    }
+
+    public void recordFailure(long latencyNanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        failed.increment();
+    }
+
+    public void reset() {
+        latency.reset();
+        successful.reset();
+        failed.reset();
+        statusCodes.clear();
+    }
+
+    public long getSuccessful() {
+        return successful.sum();
+    }
+
+    public long getTotal() {
+        return successful.sum() + failed.sum();
+    }
+
+    public String format(double seconds) {
+        long total = getTotal();
+        Map<Integer, Long> codes = new TreeMap<>();
+        statusCodes.forEach((code, count) -> codes.put(code, count.sum()));
+        return String.format(Locale.ROOT, "%-16s requests=%d throughput=%.1f/s errors=%.2f%% codes=%s%n"
+                        + "%-16s p50=%.1fms p90=%.1fms p95=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                endpoint, total, total / seconds, total == 0 ? 0 : 100.0 * failed.sum() / total, codes,
+                "", millis(50), millis(90), millis(95), millis(99), millis(99.9),
+                latency.getMaxValue() / 1000.0);
+    }
+
+    private double millis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.netology.web.load;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Value
+public class LoadConfig {
+
+    public enum Mode {
+        OPEN, CLOSED
+    }
+
+    Mode mode;
+    double ratePerSecond;
+    int users;
+    int maxInFlight;
+    Duration duration;
+    Duration warmup;
+    double creditShare;
+    double declinedShare;
+    Duration settleTimeout;
+
+    public static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Mode.valueOf(System.getProperty("load.mode", "open").toUpperCase(Locale.ROOT)),
+                Double.parseDouble(System.getProperty("load.rate", "20")),
+                Integer.getInteger("load.users", 10),
+                Integer.getInteger("load.maxInFlight", 200),
+                Duration.ofSeconds(Long.getLong("load.duration", 60L)),
+                Duration.ofSeconds(Long.getLong("load.warmup", 5L)),
+                Double.parseDouble(System.getProperty("load.credit.share", "0.5")),
+                Double.parseDouble(System.getProperty("load.declined.share", "0.2")),
+                Duration.ofSeconds(Long.getLong("load.settle", 30L)));
+    }
+}
@@ -0,0 +1,180 @@
+package ru.netology.web.load;
+
+import ru.netology.web.data.APIHelper;
+import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.SQLHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузка на покупку тура через API.
+ * Открытая модель (load.mode=open) отправляет запросы с фиксированной интенсивностью load.rate
+ * и считает задержку от запланированного момента отправки, чтобы не скрывать очередь.
+ * Закрытая модель (load.mode=closed) держит load.users виртуальных пользователей.
+ */
+public class LoadRunner {
+    private static final int CARD_POOL_SIZE = 1_000;
+
+    private final LoadConfig config;
+    private final EndpointStats payStats = new EndpointStats("/api/v1/pay");
+    private final EndpointStats creditStats = new EndpointStats("/api/v1/credit");
+    private final List<DataHelper.CardInfo> approvedCards = new ArrayList<>();
+    private final List<DataHelper.CardInfo> declinedCards = new ArrayList<>();
+    private final LongAdder totalSuccessful = new LongAdder();
+    private boolean measuring;
+    private boolean consistent = true;
+
+    public LoadRunner(LoadConfig config) {
+        this.config = config;
+        for (int i = 0; i < CARD_POOL_SIZE; i++) {
+            approvedCards.add(DataHelper.generateValidCard("APPROVED"));
+            declinedCards.add(DataHelper.generateValidCard("DECLINED"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        LoadRunner runner = new LoadRunner(config);
+        String report = runner.run();
+        System.out.println(report);
+        Path out = Paths.get(System.getProperty("load.report", "build/reports/load/load-report.txt"));
+        Files.createDirectories(out.getParent());
+        Files.write(out, report.getBytes(StandardCharsets.UTF_8));
+        if (!runner.isConsistent()) {
+            System.exit(1);
+        }
+    }
+
+    public String run() throws InterruptedException {
+        Timestamp orderMark = SQLHelper.getLastCreated("order_entity");
+        long warmupEnd = System.nanoTime() + config.getWarmup().toNanos();
+        long end = warmupEnd + config.getDuration().toNanos();
+        if (config.getMode() == LoadConfig.Mode.OPEN) {
+            runOpen(warmupEnd, end);
+        } else {
+            runClosed(warmupEnd, end);
+        }
+        double seconds = config.getDuration().toMillis() / 1000.0;
+
+        long expectedOrders = totalSuccessful.sum();
+        long orders = awaitOrders(orderMark, expectedOrders);
+        StringBuilder report = new StringBuilder();
+        report.append("mode=").append(config.getMode())
+                .append(config.getMode() == LoadConfig.Mode.OPEN
+                        ? " rate=" + config.getRatePerSecond() + "/s" : " users=" + config.getUsers())
+                .append(" duration=").append(config.getDuration().getSeconds()).append("s")
+                .append(" warmup=").append(config.getWarmup().getSeconds()).append("s")
+                .append(System.lineSeparator())
+                .append(payStats.format(seconds)).append(System.lineSeparator())
+                .append(creditStats.format(seconds)).append(System.lineSeparator())
+                .append("order_entity rows=").append(orders)
+                .append(" successful responses=").append(expectedOrders)
+                .append(orders == expectedOrders ? " OK" : " MISMATCH");
+        consistent = orders == expectedOrders;
+        if (Boolean.getBoolean("load.reconcile")) {
+            Reconciler.Result reconciliation = new Reconciler(Integer.getInteger("tour.price", 4_500_000),
+                    Runtime.getRuntime().availableProcessors()).run(orderMark);
+            report.append(System.lineSeparator()).append(reconciliation.getReport());
+            consistent &= reconciliation.isClean();
+        }
+        return report.toString();
+    }
+
+    /**
+     * Число заказов совпало с успешными ответами и (с load.reconcile) сверка не нашла расхождений.
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    private void runOpen(long warmupEnd, long end) throws InterruptedException {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond());
+        long intended = System.nanoTime();
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            switchPhase(warmupEnd);
+            long scheduledAt = intended;
+            inFlight.acquire();
+            workers.execute(() -> {
+                try {
+                    purchase(scheduledAt);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            intended += interval;
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+    }
+
+    private void runClosed(long warmupEnd, long end) throws InterruptedException {
+        ExecutorService users = Executors.newFixedThreadPool(config.getUsers());
+        for (int i = 0; i < config.getUsers(); i++) {
+            users.execute(() -> {
+                while (System.nanoTime() < end) {
+                    purchase(System.nanoTime());
+                }
+            });
+        }
+        while (System.nanoTime() < end) {
+            switchPhase(warmupEnd);
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        users.shutdown();
+        users.awaitTermination(5, TimeUnit.MINUTES);
+    }
+
+    private synchronized void switchPhase(long warmupEnd) {
+        if (!measuring && System.nanoTime() >= warmupEnd) {
+            payStats.reset();
+            creditStats.reset();
+            measuring = true;
+        }
+    }
+
+    private void purchase(long scheduledAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<DataHelper.CardInfo> cards = random.nextDouble() < config.getDeclinedShare() ? declinedCards : approvedCards;
+        DataHelper.CardInfo card = cards.get(random.nextInt(cards.size()));
+        boolean credit = random.nextDouble() < config.getCreditShare();
+        EndpointStats stats = credit ? creditStats : payStats;
+        try {
+            APIHelper.PurchaseResponse response = credit ? APIHelper.payInCredit(card) : APIHelper.pay(card);
+            stats.recordResponse(response.getStatusCode(), System.nanoTime() - scheduledAt);
+            if (response.isSuccessful()) {
+                totalSuccessful.increment();
+            }
+        } catch (Exception e) {
+            stats.recordFailure(System.nanoTime() - scheduledAt);
+        }
+    }
+
+    private long awaitOrders(Timestamp mark, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + config.getSettleTimeout().toNanos();
+        long count = SQLHelper.countCreatedAfter("order_entity", mark);
+        while (count < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(500);
+            count = SQLHelper.countCreatedAfter("order_entity", mark);
+        }
+        return count;
+    }
+}
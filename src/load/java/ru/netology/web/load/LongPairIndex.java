@@ -0,0 +1,59 @@
+package ru.netology.web.load;
+
+/**
+ * Хеш-индекс с открытой адресацией по 128-битному ключу, хранящемуся в двух массивах long
+ * (старшие и младшие 64 бита идентификатора). Хранит только номера строк в int[], без объектов на строку.
+ */
+class LongPairIndex {
+    private final long[] hi;
+    private final long[] lo;
+    private final int[] slots;
+    private final int mask;
+
+    LongPairIndex(long[] hi, long[] lo, int size) {
+        this.hi = hi;
+        this.lo = lo;
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Добавляет строку row; если такой ключ уже есть, возвращает номер прежней строки, иначе -1.
+     */
+    int insert(int row) {
+        int slot = slot(hi[row], lo[row]);
+        while (slots[slot] != 0) {
+            int existing = slots[slot] - 1;
+            if (hi[existing] == hi[row] && lo[existing] == lo[row]) {
+                return existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+        return -1;
+    }
+
+    int find(long keyHi, long keyLo) {
+        int slot = slot(keyHi, keyLo);
+        while (slots[slot] != 0) {
+            int row = slots[slot] - 1;
+            if (hi[row] == keyHi && lo[row] == keyLo) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    static long mix(long keyHi, long keyLo) {
+        long h = keyHi * 0x9E3779B97F4A7C15L ^ keyLo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    private int slot(long keyHi, long keyLo) {
+        return (int) mix(keyHi, keyLo) & mask;
+    }
+}
@@ -0,0 +1,351 @@
+package ru.netology.web.load;
+
+import lombok.Value;
+import ru.netology.web.data.SQLHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Сверка заказов с платежами и кредитными заявками.
+ * Три таблицы читаются параллельно курсорами SQLHelper, идентификаторы упаковываются в пары long
+ * и раскладываются по партициям по хешу ключа соединения, так что платеж и его заказ всегда попадают
+ * в одну партицию. Партиции сверяются параллельно через LongPairIndex, без объекта на строку.
+ * Цена тура в копейках задается tour.price (по умолчанию 4 500 000 — 45 000 руб., как на странице покупки).
+ */
+public class Reconciler {
+    private static final int SAMPLES = 10;
+    private static final byte APPROVED = 0;
+    private static final byte DECLINED = 1;
+    private static final byte UNKNOWN = 2;
+
+    public enum Issue {
+        ORPHAN_ORDER("заказ без платежа или заявки"),
+        ORPHAN_PAYMENT("платеж без заказа"),
+        ORPHAN_CREDIT("заявка без заказа"),
+        DUPLICATE_PAYMENT("повтор transaction_id платежа"),
+        DUPLICATE_CREDIT("повтор id заявки"),
+        DUPLICATE_ORDER("несколько заказов на один платеж или заявку"),
+        AMOUNT_MISMATCH("сумма платежа не равна цене тура"),
+        BANK_MISMATCH("payment_id заказа не равен bank_id заявки"),
+        UNKNOWN_STATUS("статус не APPROVED и не DECLINED");
+
+        private final String description;
+
+        Issue(String description) {
+            this.description = description;
+        }
+    }
+
+    private final int price;
+    private final Partition[] partitions;
+
+    public Reconciler(int price, int partitionCount) {
+        this.price = price;
+        int count = Integer.highestOneBit(Math.max(1, partitionCount) * 2 - 1);
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String since = System.getProperty("reconcile.since");
+        Result result = new Reconciler(Integer.getInteger("tour.price", 4_500_000),
+                Integer.getInteger("reconcile.partitions", Runtime.getRuntime().availableProcessors()))
+                .run(since == null || since.isBlank() ? null : Timestamp.valueOf(since));
+        System.out.println(result.getReport());
+        Path out = Paths.get(System.getProperty("reconcile.report", "build/reports/load/reconcile-report.txt"));
+        Files.createDirectories(out.getParent());
+        Files.write(out, result.getReport().getBytes(StandardCharsets.UTF_8));
+        if (!result.isClean()) {
+            System.exit(1);
+        }
+    }
+
+    public Result run(Timestamp since) {
+        long start = System.nanoTime();
+        ExecutorService readers = Executors.newFixedThreadPool(3);
+        try {
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(() -> loadPayments(since), readers),
+                    CompletableFuture.runAsync(() -> loadCredits(since), readers),
+                    CompletableFuture.runAsync(() -> loadOrders(since), readers)).join();
+        } finally {
+            readers.shutdown();
+        }
+        long loaded = System.nanoTime();
+
+        Map<Issue, Long> counts = new EnumMap<>(Issue.class);
+        Map<Issue, List<String>> samples = new EnumMap<>(Issue.class);
+        List<Findings> findings = IntStream.range(0, partitions.length).parallel()
+                .mapToObj(i -> partitions[i].reconcile(price))
+                .collect(Collectors.toList());
+        long payments = 0;
+        long credits = 0;
+        long orders = 0;
+        for (int i = 0; i < partitions.length; i++) {
+            payments += partitions[i].payments.size;
+            credits += partitions[i].credits.size;
+            orders += partitions[i].paymentOrders.size + partitions[i].creditOrders.size;
+            for (Issue issue : Issue.values()) {
+                counts.merge(issue, findings.get(i).counts[issue.ordinal()], Long::sum);
+                List<String> merged = samples.computeIfAbsent(issue, key -> new ArrayList<>());
+                for (String sample : findings.get(i).samples.get(issue)) {
+                    if (merged.size() < SAMPLES) {
+                        merged.add(sample);
+                    }
+                }
+            }
+        }
+        long done = System.nanoTime();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT,
+                "payment_entity=%d credit_request_entity=%d order_entity=%d since=%s price=%d partitions=%d%n"
+                        + "read=%.1f s reconcile=%.2f s%n",
+                payments, credits, orders, since, price, partitions.length,
+                (loaded - start) / 1e9, (done - loaded) / 1e9));
+        long total = 0;
+        for (Issue issue : Issue.values()) {
+            long count = counts.get(issue);
+            total += count;
+            report.append(String.format(Locale.ROOT, "%-18s %8d  %s%n", issue, count, issue.description));
+            for (String sample : samples.get(issue)) {
+                report.append("                   ").append(sample).append(System.lineSeparator());
+            }
+        }
+        report.append(total == 0 ? "reconciliation OK" : "reconciliation MISMATCH");
+        return new Result(total, report.toString());
+    }
+
+    private void loadPayments(Timestamp since) {
+        try (Stream<SQLHelper.PaymentEntity> rows = SQLHelper.streamPaymentEntities(since)) {
+            rows.forEach(payment -> {
+                UUID key = key(payment.getTransaction_id());
+                partitionOf(key).payments.add(key.getMostSignificantBits(), key.getLeastSignificantBits(),
+                        payment.getAmount(), status(payment.getStatus()));
+            });
+        }
+    }
+
+    private void loadCredits(Timestamp since) {
+        try (Stream<SQLHelper.CreditRequestEntity> rows = SQLHelper.streamCreditRequestEntities(since)) {
+            rows.forEach(credit -> {
+                UUID key = key(credit.getId());
+                UUID bank = key(credit.getBank_id());
+                partitionOf(key).credits.add(key.getMostSignificantBits(), key.getLeastSignificantBits(),
+                        bank.getMostSignificantBits(), bank.getLeastSignificantBits(), status(credit.getStatus()));
+            });
+        }
+    }
+
+    private void loadOrders(Timestamp since) {
+        try (Stream<SQLHelper.OrderEntity> rows = SQLHelper.streamOrderEntities(since)) {
+            rows.forEach(order -> {
+                UUID payment = key(order.getPayment_id());
+                if (order.getCredit_id() == null) {
+                    partitionOf(payment).paymentOrders.add(payment.getMostSignificantBits(),
+                            payment.getLeastSignificantBits(), 0, 0, (byte) 0);
+                } else {
+                    UUID credit = key(order.getCredit_id());
+                    partitionOf(credit).creditOrders.add(credit.getMostSignificantBits(),
+                            credit.getLeastSignificantBits(), payment.getMostSignificantBits(),
+                            payment.getLeastSignificantBits(), (byte) 0);
+                }
+            });
+        }
+    }
+
+    private Partition partitionOf(UUID key) {
+        long mixed = LongPairIndex.mix(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        return partitions[(int) (mixed >>> 40) & (partitions.length - 1)];
+    }
+
+    private static byte status(String status) {
+        if ("APPROVED".equals(status)) {
+            return APPROVED;
+        }
+        return "DECLINED".equals(status) ? DECLINED : UNKNOWN;
+    }
+
+    /**
+     * Идентификаторы приложения — UUID; прочие строки (и null) хешируются в те же 128 бит.
+     */
+    private static UUID key(String id) {
+        if (id != null && id.length() == 36) {
+            try {
+                return UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                // не UUID — хешируем ниже
+            }
+        }
+        return new UUID(hash(id, 0x9E3779B97F4A7C15L), hash(id, 0xC2B2AE3D27D4EB4FL));
+    }
+
+    private static long hash(String id, long seed) {
+        long h = seed;
+        String value = id == null ? "" : id;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return LongPairIndex.mix(h, seed);
+    }
+
+    private static String id(long hi, long lo) {
+        return new UUID(hi, lo).toString();
+    }
+
+    /**
+     * Колонки строк одной таблицы в партиции: ключ, вторая пара long и два поля-значения.
+     */
+    private static class Rows {
+        long[] hi = new long[1024];
+        long[] lo = new long[1024];
+        long[] otherHi = new long[1024];
+        long[] otherLo = new long[1024];
+        int[] amount = new int[1024];
+        byte[] status = new byte[1024];
+        int size;
+
+        void add(long keyHi, long keyLo, int value, byte state) {
+            add(keyHi, keyLo, 0, 0, state);
+            amount[size - 1] = value;
+        }
+
+        void add(long keyHi, long keyLo, long secondHi, long secondLo, byte state) {
+            if (size == hi.length) {
+                int capacity = size * 2;
+                hi = Arrays.copyOf(hi, capacity);
+                lo = Arrays.copyOf(lo, capacity);
+                otherHi = Arrays.copyOf(otherHi, capacity);
+                otherLo = Arrays.copyOf(otherLo, capacity);
+                amount = Arrays.copyOf(amount, capacity);
+                status = Arrays.copyOf(status, capacity);
+            }
+            hi[size] = keyHi;
+            lo[size] = keyLo;
+            otherHi[size] = secondHi;
+            otherLo[size] = secondLo;
+            status[size] = state;
+            size++;
+        }
+    }
+
+    private static class Partition {
+        final Rows payments = new Rows();
+        final Rows credits = new Rows();
+        final Rows paymentOrders = new Rows();
+        final Rows creditOrders = new Rows();
+
+        Findings reconcile(int price) {
+            Findings findings = new Findings();
+            int[] paymentOrderCount = new int[payments.size];
+            LongPairIndex paymentIndex = new LongPairIndex(payments.hi, payments.lo, payments.size);
+            for (int row = 0; row < payments.size; row++) {
+                if (paymentIndex.insert(row) >= 0) {
+                    findings.add(Issue.DUPLICATE_PAYMENT, id(payments.hi[row], payments.lo[row]));
+                }
+                if (payments.amount[row] != price) {
+                    findings.add(Issue.AMOUNT_MISMATCH, id(payments.hi[row], payments.lo[row])
+                            + " amount=" + payments.amount[row]);
+                }
+                if (payments.status[row] == UNKNOWN) {
+                    findings.add(Issue.UNKNOWN_STATUS, "payment " + id(payments.hi[row], payments.lo[row]));
+                }
+            }
+            for (int row = 0; row < paymentOrders.size; row++) {
+                int payment = paymentIndex.find(paymentOrders.hi[row], paymentOrders.lo[row]);
+                if (payment < 0) {
+                    findings.add(Issue.ORPHAN_ORDER, "payment_id=" + id(paymentOrders.hi[row], paymentOrders.lo[row]));
+                } else if (++paymentOrderCount[payment] == 2) {
+                    findings.add(Issue.DUPLICATE_ORDER, "payment " + id(payments.hi[payment], payments.lo[payment]));
+                }
+            }
+            for (int row = 0; row < payments.size; row++) {
+                if (paymentOrderCount[row] == 0 && paymentIndex.find(payments.hi[row], payments.lo[row]) == row) {
+                    findings.add(Issue.ORPHAN_PAYMENT, id(payments.hi[row], payments.lo[row]));
+                }
+            }
+
+            int[] creditOrderCount = new int[credits.size];
+            LongPairIndex creditIndex = new LongPairIndex(credits.hi, credits.lo, credits.size);
+            for (int row = 0; row < credits.size; row++) {
+                if (creditIndex.insert(row) >= 0) {
+                    findings.add(Issue.DUPLICATE_CREDIT, id(credits.hi[row], credits.lo[row]));
+                }
+                if (credits.status[row] == UNKNOWN) {
+                    findings.add(Issue.UNKNOWN_STATUS, "credit " + id(credits.hi[row], credits.lo[row]));
+                }
+            }
+            for (int row = 0; row < creditOrders.size; row++) {
+                int credit = creditIndex.find(creditOrders.hi[row], creditOrders.lo[row]);
+                if (credit < 0) {
+                    findings.add(Issue.ORPHAN_ORDER, "credit_id=" + id(creditOrders.hi[row], creditOrders.lo[row]));
+                    continue;
+                }
+                if (++creditOrderCount[credit] == 2) {
+                    findings.add(Issue.DUPLICATE_ORDER, "credit " + id(credits.hi[credit], credits.lo[credit]));
+                }
+                if (creditOrders.otherHi[row] != credits.otherHi[credit]
+                        || creditOrders.otherLo[row] != credits.otherLo[credit]) {
+                    findings.add(Issue.BANK_MISMATCH, "credit " + id(credits.hi[credit], credits.lo[credit]));
+                }
+            }
+            for (int row = 0; row < credits.size; row++) {
+                if (creditOrderCount[row] == 0 && creditIndex.find(credits.hi[row], credits.lo[row]) == row) {
+                    findings.add(Issue.ORPHAN_CREDIT, id(credits.hi[row], credits.lo[row]));
+                }
+            }
+            return findings;
+        }
+    }
+
+    /**
+     * Итог сверки: число найденных расхождений и текст отчета.
+     */
+    @Value
+    public static class Result {
+        long issues;
+        String report;
+
+        public boolean isClean() {
+            return issues == 0;
+        }
+    }
+
+    private static class Findings {
+        final long[] counts = new long[Issue.values().length];
+        final Map<Issue, List<String>> samples = new EnumMap<>(Issue.class);
+
+        Findings() {
+            for (Issue issue : Issue.values()) {
+                samples.put(issue, new ArrayList<>());
+            }
+        }
+
+        void add(Issue issue, String sample) {
+            counts[issue.ordinal()]++;
+            List<String> list = samples.get(issue);
+            if (list.size() < SAMPLES) {
+                list.add(sample);
+            }
+        }
+    }
+}
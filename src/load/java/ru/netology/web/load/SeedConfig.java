@@ -0,0 +1,35 @@
+package ru.netology.web.load;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Value
+public class SeedConfig {
+
+    public enum Method {
+        COPY, BATCH
+    }
+
+    long purchases;
+    double creditShare;
+    double declinedShare;
+    int amount;
+    Duration history;
+    int chunkSize;
+    Method method;
+    long randomSeed;
+
+    public static SeedConfig fromSystemProperties(boolean postgres) {
+        return new SeedConfig(
+                Long.getLong("seed.purchases", 1_000_000L),
+                Double.parseDouble(System.getProperty("seed.credit.share", "0.5")),
+                Double.parseDouble(System.getProperty("seed.declined.share", "0.2")),
+                Integer.getInteger("seed.amount", 4_500_000),
+                Duration.ofDays(Long.getLong("seed.days", 365L)),
+                Integer.getInteger("seed.chunk", 10_000),
+                Method.valueOf(System.getProperty("seed.method", postgres ? "copy" : "batch").toUpperCase(Locale.ROOT)),
+                Long.getLong("data.seed", System.nanoTime()));
+    }
+}
@@ -0,0 +1,31 @@
+package ru.netology.web.load;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class SoakConfig {
+    double ratePerSecond;
+    int maxInFlight;
+    Duration duration;
+    Duration warmup;
+    Duration sampleInterval;
+    double creditShare;
+    double declinedShare;
+    double trendZ;
+    double trendGrowth;
+
+    public static SoakConfig fromSystemProperties() {
+        return new SoakConfig(
+                Double.parseDouble(System.getProperty("soak.rate", "5")),
+                Integer.getInteger("soak.maxInFlight", 100),
+                Duration.ofMinutes(Long.getLong("soak.duration", 240L)),
+                Duration.ofMinutes(Long.getLong("soak.warmup", 5L)),
+                Duration.ofSeconds(Long.getLong("soak.sample", 30L)),
+                Double.parseDouble(System.getProperty("soak.credit.share", "0.5")),
+                Double.parseDouble(System.getProperty("soak.declined.share", "0.2")),
+                Double.parseDouble(System.getProperty("soak.trend.z", "3")),
+                Double.parseDouble(System.getProperty("soak.trend.growth", "0.2")));
+    }
+}
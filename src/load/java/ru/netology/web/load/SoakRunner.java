@@ -0,0 +1,279 @@
+package ru.netology.web.load;
+
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import ru.netology.web.data.APIHelper;
+import ru.netology.web.data.ConnectionPool;
+import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.SQLHelper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Долгий прогон покупок через API с постоянной интенсивностью soak.rate и поиском утечек.
+ * Раз в soak.sample секунд снимаются задержки за интервал, соединения сервера к базе приложения,
+ * соединения пула SQLHelper и занятая после сборки мусора куча этой JVM. После прогрева по каждому ряду
+ * считаются критерий Манна — Кендалла и наклон Тейла — Сена: значимый монотонный рост сверх порога
+ * помечается как утечка (соединения, память) или дрейф (задержка).
+ */
+public class SoakRunner {
+    private static final int CARD_POOL_SIZE = 1_000;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double DB_READ_SHARE = Double.parseDouble(System.getProperty("soak.db.share", "0.1"));
+
+    private static final List<Series> SERIES = List.of(
+            new Series("db.connections", "", 3, "LEAK", Sample::getDbConnections),
+            new Series("db.connections.idle", "", 3, "LEAK", Sample::getDbIdleConnections),
+            new Series("pool.opened", "", 2, "LEAK", Sample::getPoolOpened),
+            new Series("heap.afterGc", "MB", 32, "LEAK", Sample::getHeapAfterGcMb),
+            new Series("latency.p50", "ms", 5, "DRIFT", Sample::getP50Millis),
+            new Series("latency.p99", "ms", 20, "DRIFT", Sample::getP99Millis));
+
+    private final SoakConfig config;
+    private final Recorder latency = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final List<DataHelper.CardInfo> approvedCards = new ArrayList<>();
+    private final List<DataHelper.CardInfo> declinedCards = new ArrayList<>();
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+    private long startNanos;
+
+    public SoakRunner(SoakConfig config) {
+        this.config = config;
+        for (int i = 0; i < CARD_POOL_SIZE; i++) {
+            approvedCards.add(DataHelper.generateValidCard("APPROVED"));
+            declinedCards.add(DataHelper.generateValidCard("DECLINED"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SoakRunner runner = new SoakRunner(SoakConfig.fromSystemProperties());
+        String report = runner.run();
+        System.out.println(report);
+        Path out = Paths.get(System.getProperty("soak.report", "build/reports/load/soak-report.txt"));
+        Files.createDirectories(out.getParent());
+        Files.write(out, report.getBytes(StandardCharsets.UTF_8));
+        Files.write(out.resolveSibling("soak-samples.csv"), runner.formatSamples().getBytes(StandardCharsets.UTF_8));
+        if (report.contains("soak GROWTH")) {
+            System.exit(1);
+        }
+    }
+
+    public String run() throws InterruptedException {
+        startNanos = System.nanoTime();
+        long end = startNanos + config.getWarmup().toNanos() + config.getDuration().toNanos();
+        long interval = config.getSampleInterval().toMillis();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(this::sample, interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            runOpen(end);
+        } finally {
+            sampler.shutdown();
+            sampler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return analyze();
+    }
+
+    private void runOpen(long end) throws InterruptedException {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        long step = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond());
+        long intended = System.nanoTime();
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduledAt = intended;
+            inFlight.acquire();
+            workers.execute(() -> {
+                try {
+                    purchase(scheduledAt);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            intended += step;
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+    }
+
+    private void purchase(long scheduledAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<DataHelper.CardInfo> cards = random.nextDouble() < config.getDeclinedShare() ? declinedCards : approvedCards;
+        DataHelper.CardInfo card = cards.get(random.nextInt(cards.size()));
+        boolean credit = random.nextDouble() < config.getCreditShare();
+        requests.increment();
+        try {
+            APIHelper.PurchaseResponse response = credit ? APIHelper.payInCredit(card) : APIHelper.pay(card);
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt),
+                    MAX_LATENCY_MICROS));
+            if (!response.isSuccessful()) {
+                errors.increment();
+            } else if (random.nextDouble() < DB_READ_SHARE) {
+                SQLHelper.getLastCreated("order_entity");
+            }
+        } catch (Exception e) {
+            errors.increment();
+        }
+    }
+
+    private void sample() {
+        try {
+            Histogram interval = latency.getIntervalHistogram();
+            double dbConnections = Double.NaN;
+            double dbIdle = Double.NaN;
+            try {
+                SQLHelper.ServerConnections connections = SQLHelper.getServerConnections();
+                dbConnections = connections.getTotal();
+                dbIdle = connections.getIdle();
+            } catch (Exception e) {
+                System.err.println("Соединения сервера не прочитаны: " + e);
+            }
+            ConnectionPool.Stats pool = SQLHelper.getPoolStats();
+            Sample sample = new Sample((System.nanoTime() - startNanos) / 1e9, requests.sumThenReset(),
+                    errors.sumThenReset(), interval.getValueAtPercentile(50) / 1000.0,
+                    interval.getValueAtPercentile(99) / 1000.0, dbConnections, dbIdle, pool.getOpened(),
+                    pool.getActive(), heapAfterGcMb());
+            samples.add(sample);
+            System.out.println(sample.format());
+        } catch (Exception e) {
+            System.err.println("Замер не снят: " + e);
+        }
+    }
+
+    /**
+     * Занятая куча сразу после последней сборки мусора по всем пулам кучи: без мусора между сборками
+     * этот ряд растет, только если объекты действительно удерживаются.
+     */
+    private static double heapAfterGcMb() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used / (1024.0 * 1024.0);
+    }
+
+    private String analyze() {
+        double warmupSeconds = config.getWarmup().getSeconds();
+        List<Sample> steady = new ArrayList<>();
+        synchronized (samples) {
+            for (Sample sample : samples) {
+                if (sample.getElapsedSeconds() >= warmupSeconds) {
+                    steady.add(sample);
+                }
+            }
+        }
+        long total = steady.stream().mapToLong(Sample::getRequests).sum();
+        long failed = steady.stream().mapToLong(Sample::getErrors).sum();
+        double perHour = 3600.0 / config.getSampleInterval().getSeconds();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT,
+                "rate=%.1f/s duration=%d min warmup=%d min sample=%d s samples=%d requests=%d errors=%.2f%%%n",
+                config.getRatePerSecond(), config.getDuration().toMinutes(), config.getWarmup().toMinutes(),
+                config.getSampleInterval().getSeconds(), steady.size(), total,
+                total == 0 ? 0 : 100.0 * failed / total));
+        report.append(String.format(Locale.ROOT, "%-20s %10s %10s %12s %7s  %s%n",
+                "series", "start", "end", "slope/hour", "z", "verdict"));
+        boolean flagged = false;
+        for (Series series : SERIES) {
+            double[] values = steady.stream().mapToDouble(series.extractor).filter(value -> !Double.isNaN(value))
+                    .toArray();
+            if (values.length < 3) {
+                report.append(String.format(Locale.ROOT, "%-20s %s%n", series.name, "мало замеров"));
+                continue;
+            }
+            int window = Math.max(1, Math.min(10, values.length / 5));
+            double start = Trend.median(Arrays.copyOfRange(values, 0, window));
+            double end = Trend.median(Arrays.copyOfRange(values, values.length - window, values.length));
+            double slope = Trend.theilSenSlope(values);
+            double z = Trend.mannKendallZ(values);
+            double growth = slope * (values.length - 1);
+            boolean growing = z >= config.getTrendZ()
+                    && growth >= Math.max(series.floor, config.getTrendGrowth() * Math.abs(start));
+            flagged |= growing;
+            report.append(String.format(Locale.ROOT, "%-20s %10.1f %10.1f %12.2f %7.2f  %s%n",
+                    series.name + (series.unit.isEmpty() ? "" : ", " + series.unit), start, end,
+                    slope * perHour, z, growing ? series.verdict : "stable"));
+        }
+        report.append(flagged ? "soak GROWTH" : "soak OK");
+        return report.toString();
+    }
+
+    private String formatSamples() {
+        StringBuilder csv = new StringBuilder(
+                "elapsed_s,requests,errors,p50_ms,p99_ms,db_connections,db_idle,pool_opened,pool_active,heap_after_gc_mb\n");
+        synchronized (samples) {
+            for (Sample sample : samples) {
+                csv.append(String.format(Locale.ROOT, "%.0f,%d,%d,%.1f,%.1f,%.0f,%.0f,%.0f,%.0f,%.1f%n",
+                        sample.getElapsedSeconds(), sample.getRequests(), sample.getErrors(), sample.getP50Millis(),
+                        sample.getP99Millis(), sample.getDbConnections(), sample.getDbIdleConnections(),
+                        sample.getPoolOpened(), sample.getPoolActive(), sample.getHeapAfterGcMb()));
+            }
+        }
+        return csv.toString();
+    }
+
+    @Value
+    static class Sample {
+        double elapsedSeconds;
+        long requests;
+        long errors;
+        double p50Millis;
+        double p99Millis;
+        double dbConnections;
+        double dbIdleConnections;
+        double poolOpened;
+        double poolActive;
+        double heapAfterGcMb;
+
+        String format() {
+            return String.format(Locale.ROOT,
+                    "t=%6.0fs requests=%d errors=%d p50=%.1fms p99=%.1fms db=%.0f (idle %.0f) pool=%.0f/%.0f heap=%.1fMB",
+                    elapsedSeconds, requests, errors, p50Millis, p99Millis, dbConnections, dbIdleConnections,
+                    poolActive, poolOpened, heapAfterGcMb);
+        }
+    }
+
+    private static class Series {
+        private final String name;
+        private final String unit;
+        private final double floor;
+        private final String verdict;
+        private final ToDoubleFunction<Sample> extractor;
+
+        Series(String name, String unit, double floor, String verdict, ToDoubleFunction<Sample> extractor) {
+            this.name = name;
+            this.unit = unit;
+            this.floor = floor;
+            this.verdict = verdict;
+            this.extractor = extractor;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.netology.web.load;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Оценка монотонного тренда ряда замеров: критерий Манна — Кендалла (знак и значимость)
+ * и наклон Тейла — Сена (медиана попарных наклонов), устойчивые к выбросам и сборкам мусора.
+ */
+final class Trend {
+    private static final int MAX_PAIRS = 2_000_000;
+
+    private Trend() {
+    }
+
+    /**
+     * Z-статистика Манна — Кендалла с поправкой на совпадающие значения; больше нуля — рост.
+     */
+    static double mannKendallZ(double[] values) {
+        int n = values.length;
+        if (n < 3) {
+            return 0;
+        }
+        long s = 0;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                s += Double.compare(values[j], values[i]);
+            }
+        }
+        double variance = n * (n - 1.0) * (2 * n + 5);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && sorted[j] == sorted[i]) {
+                j++;
+            }
+            long ties = j - i;
+            variance -= ties * (ties - 1.0) * (2 * ties + 5);
+            i = j;
+        }
+        variance /= 18;
+        if (variance <= 0 || s == 0) {
+            return 0;
+        }
+        return (s - Long.signum(s)) / Math.sqrt(variance);
+    }
+
+    /**
+     * Медиана наклонов по всем парам замеров, в единицах ряда на замер. Если пар больше MAX_PAIRS,
+     * медиана берется по MAX_PAIRS случайным парам с постоянным зерном, чтобы отчет был воспроизводим.
+     */
+    static double theilSenSlope(double[] values) {
+        int n = values.length;
+        if (n < 2) {
+            return 0;
+        }
+        long pairs = (long) n * (n - 1) / 2;
+        if (pairs > MAX_PAIRS) {
+            return median(sampledSlopes(values));
+        }
+        double[] slopes = new double[(int) pairs];
+        int k = 0;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                slopes[k++] = (values[j] - values[i]) / (j - i);
+            }
+        }
+        return median(slopes);
+    }
+
+    private static double[] sampledSlopes(double[] values) {
+        SplittableRandom random = new SplittableRandom(values.length);
+        double[] slopes = new double[MAX_PAIRS];
+        for (int k = 0; k < MAX_PAIRS; ) {
+            int i = random.nextInt(values.length);
+            int j = random.nextInt(values.length);
+            if (i != j) {
+                slopes[k++] = (values[Math.max(i, j)] - values[Math.min(i, j)]) / Math.abs(j - i);
+            }
+        }
+        return slopes;
+    }
+
+    static double median(double[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.netology.web.data;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+import org.openqa.selenium.json.Json;
+import ru.netology.web.report.StepTimer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Отправляет те же данные карты, что и форма TravelPurchasePage, напрямую в REST API приложения.
+ */
+public class APIHelper {
+    private static final Json json = new Json();
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private static final Duration requestTimeout = Duration.ofMillis(Long.getLong("api.timeout", 30_000L));
+    private static String url = System.getProperty("app.url");
+
+    private APIHelper() {
+    }
+
+    public static PurchaseResponse pay(DataHelper.CardInfo card) {
+        return send("/api/v1/pay", card);
+    }
+
+    public static PurchaseResponse payInCredit(DataHelper.CardInfo card) {
+        return send("/api/v1/credit", card);
+    }
+
+    @SneakyThrows
+    private static PurchaseResponse send(String path, DataHelper.CardInfo card) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("number", card.getNumber());
+        body.put("month", card.getMonth());
+        body.put("year", card.getYear());
+        body.put("holder", card.getHolder());
+        body.put("cvc", card.getCvc());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toJson(body)))
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long latency = System.nanoTime() - start;
+        StepTimer.record("api" + path, System.currentTimeMillis(), latency);
+        return new PurchaseResponse(path, response.statusCode(), response.body(), latency);
+    }
+
+    @Value
+    public static class PurchaseResponse {
+        String endpoint;
+        int statusCode;
+        String body;
+        long latencyNanos;
+
+        public boolean isSuccessful() {
+            return statusCode == 200;
+        }
+    }
+}
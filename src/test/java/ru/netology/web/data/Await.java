@@ -0,0 +1,63 @@
+package ru.netology.web.data;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+public class Await {
+
+    private static final Duration DEFAULT_TIMEOUT =
+            Duration.ofMillis(Long.getLong("db.await.timeout", 18_000L));
+    private static final long INITIAL_DELAY_MILLIS = Long.getLong("db.await.initial", 50L);
+    private static final long MAX_DELAY_MILLIS = Long.getLong("db.await.max", 1_000L);
+
+    private Await() {
+    }
+
+    public static <T> T until(String description, Supplier<T> probe) {
+        return until(description, probe, DEFAULT_TIMEOUT);
+    }
+
+    public static <T> T until(String description, Supplier<T> probe, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long delay = INITIAL_DELAY_MILLIS;
+        while (true) {
+            T value = probe.get();
+            if (value != null) {
+                return value;
+            }
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                throw new AssertionError("Не дождались: " + description + " за " + timeout.toMillis() + " мс");
+            }
+            sleep(Math.min(delay, Duration.ofNanos(left).toMillis() + 1));
+            delay = Math.min(delay * 2, MAX_DELAY_MILLIS);
+        }
+    }
+
+    public static <T> T future(String description, CompletableFuture<T> future) {
+        try {
+            return future.get(DEFAULT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new AssertionError("Не дождались: " + description + " за " + DEFAULT_TIMEOUT.toMillis() + " мс");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание прервано", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание прервано", e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ru.netology.web.data;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Общий для всех тестов JVM фоновый наблюдатель за payment_entity, credit_request_entity и order_entity.
+ * Раз в db.feed.interval мс одним инкрементальным запросом на таблицу забирает строки с created не меньше
+ * последнего увиденного, индексирует их по идентификаторам и связям (transaction_id, bank_id, payment_id,
+ * credit_id) и по тем же ключам завершает подписки тестов, ждущих эти строки. Строки старше последней
+ * увиденной на db.feed.retention мс вытесняются; время берется из created БД, а не из часов JVM.
+ */
+public class ChangeFeed {
+    private static final boolean enabled = Boolean.getBoolean("db.feed");
+    private static final long intervalMillis = Long.getLong("db.feed.interval", 100L);
+    private static final long retentionMillis = Long.getLong("db.feed.retention", 600_000L);
+    private static ChangeFeed instance;
+
+    private final Table<SQLHelper.PaymentEntity> payments = new Table<>("payment_entity",
+            SQLHelper.PaymentEntity.class, SQLHelper.PaymentEntity::getId, SQLHelper.PaymentEntity::getCreated)
+            .index("transaction_id", SQLHelper.PaymentEntity::getTransaction_id);
+    private final Table<SQLHelper.CreditRequestEntity> credits = new Table<>("credit_request_entity",
+            SQLHelper.CreditRequestEntity.class, SQLHelper.CreditRequestEntity::getId,
+            SQLHelper.CreditRequestEntity::getCreated)
+            .index("bank_id", SQLHelper.CreditRequestEntity::getBank_id);
+    private final Table<SQLHelper.OrderEntity> orders = new Table<>("order_entity",
+            SQLHelper.OrderEntity.class, SQLHelper.OrderEntity::getId, SQLHelper.OrderEntity::getCreated)
+            .index("payment_id", SQLHelper.OrderEntity::getPayment_id)
+            .index("credit_id", SQLHelper.OrderEntity::getCredit_id);
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "db-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ChangeFeed() {
+        poller.scheduleWithFixedDelay(this::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized ChangeFeed get() {
+        if (instance == null) {
+            instance = new ChangeFeed();
+        }
+        return instance;
+    }
+
+    public CompletableFuture<SQLHelper.PaymentEntity> paymentByTransactionId(String transactionId) {
+        return payments.subscribe("transaction_id", transactionId);
+    }
+
+    public CompletableFuture<SQLHelper.CreditRequestEntity> creditByBankId(String bankId) {
+        return credits.subscribe("bank_id", bankId);
+    }
+
+    public CompletableFuture<SQLHelper.OrderEntity> orderByPaymentId(String paymentId) {
+        return orders.subscribe("payment_id", paymentId);
+    }
+
+    public CompletableFuture<SQLHelper.OrderEntity> orderByCreditId(String creditId) {
+        return orders.subscribe("credit_id", creditId);
+    }
+
+    private void poll() {
+        try {
+            payments.poll();
+            credits.poll();
+            orders.poll();
+        } catch (Exception e) {
+            // БД временно недоступна (например, пересоздается из шаблона) — повторим на следующем шаге;
+            // SQLException из SQLHelper летит «тихо», и без этого catch опрос остановился бы навсегда
+            System.err.println("Опрос ChangeFeed не удался: " + e);
+        }
+    }
+
+    private static class Table<T> {
+        private final String name;
+        private final Class<T> type;
+        private final Function<T, String> id;
+        private final Function<T, Timestamp> created;
+        private final ConcurrentSkipListMap<String, T> rows = new ConcurrentSkipListMap<>();
+        private final Map<String, T> byId = new ConcurrentHashMap<>();
+        private final Map<String, Index<T>> indexes = new HashMap<>();
+        private volatile Timestamp watermark;
+
+        Table(String name, Class<T> type, Function<T, String> id, Function<T, Timestamp> created) {
+            this.name = name;
+            this.type = type;
+            this.id = id;
+            this.created = created;
+            this.watermark = SQLHelper.getLastCreated(name);
+        }
+
+        Table<T> index(String column, Function<T, String> key) {
+            indexes.put(column, new Index<>(key));
+            return this;
+        }
+
+        void poll() {
+            for (T row : SQLHelper.getCreatedSince(name, watermark, type)) {
+                if (byId.putIfAbsent(id.apply(row), row) != null) {
+                    continue;
+                }
+                Timestamp rowCreated = created.apply(row);
+                rows.put(orderKey(rowCreated, id.apply(row)), row);
+                if (watermark == null || rowCreated.after(watermark)) {
+                    watermark = rowCreated;
+                }
+                indexes.values().forEach(index -> index.add(row));
+            }
+            indexes.values().forEach(Index::dropAbandoned);
+            evictExpired();
+        }
+
+        CompletableFuture<T> subscribe(String column, String value) {
+            return indexes.get(column).subscribe(value);
+        }
+
+        private void evictExpired() {
+            Timestamp last = watermark;
+            if (last == null) {
+                return;
+            }
+            String limit = orderKey(new Timestamp(last.getTime() - retentionMillis), "");
+            Map<String, T> expired = rows.headMap(limit);
+            expired.values().forEach(row -> {
+                byId.remove(id.apply(row));
+                indexes.values().forEach(index -> index.remove(row));
+            });
+            expired.clear();
+        }
+
+        private static String orderKey(Timestamp created, String id) {
+            return String.format(Locale.ROOT, "%019d%09d|%s", created.getTime() / 1000, created.getNanos(), id);
+        }
+    }
+
+    /**
+     * Строки таблицы по значению одного столбца (первая по created) и подписки, ждущие это значение.
+     */
+    private static class Index<T> {
+        private final Function<T, String> key;
+        private final Map<String, T> rows = new ConcurrentHashMap<>();
+        private final Map<String, List<CompletableFuture<T>>> waiting = new ConcurrentHashMap<>();
+
+        Index(Function<T, String> key) {
+            this.key = key;
+        }
+
+        void add(T row) {
+            String value = key.apply(row);
+            if (value == null) {
+                return;
+            }
+            rows.putIfAbsent(value, row);
+            complete(value);
+        }
+
+        void remove(T row) {
+            String value = key.apply(row);
+            if (value != null) {
+                rows.remove(value, row);
+            }
+        }
+
+        CompletableFuture<T> subscribe(String value) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            waiting.compute(value, (v, futures) -> {
+                List<CompletableFuture<T>> list = futures == null ? new ArrayList<>() : futures;
+                list.add(future);
+                return list;
+            });
+            // Строка могла попасть в индекс до подписки: тогда опрос ее уже не увидит
+            complete(value);
+            return future;
+        }
+
+        void dropAbandoned() {
+            for (String value : waiting.keySet()) {
+                waiting.computeIfPresent(value, (v, futures) -> {
+                    futures.removeIf(CompletableFuture::isDone);
+                    return futures.isEmpty() ? null : futures;
+                });
+            }
+        }
+
+        private void complete(String value) {
+            T row = rows.get(value);
+            if (row == null) {
+                return;
+            }
+            List<CompletableFuture<T>> futures = waiting.remove(value);
+            if (futures != null) {
+                futures.forEach(future -> future.complete(row));
+            }
+        }
+    }
+}
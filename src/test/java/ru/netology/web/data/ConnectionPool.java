@@ -0,0 +1,278 @@
+package ru.netology.web.data;
+
+import lombok.Value;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный пул JDBC-соединений для SQLHelper.
+ * Соединение проверяется при выдаче, подготовленные запросы кэшируются на каждом физическом соединении,
+ * а close() у выданного соединения возвращает его в пул.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int statementCacheSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          int statementCacheSize, long borrowTimeoutMillis, int validationTimeoutSeconds) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.statementCacheSize = statementCacheSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Нет свободных соединений в пуле за " + borrowTimeoutMillis + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        try {
+            PhysicalConnection physical = takeValid();
+            long waited = System.nanoTime() - start;
+            borrows.incrementAndGet();
+            borrowWaitNanos.addAndGet(waited);
+            maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+            active.incrementAndGet();
+            return physical.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            physical.destroy();
+        }
+    }
+
+    public Stats getStats() {
+        long count = borrows.get();
+        return new Stats(active.get(), idle.size(), opened.get(), count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.get() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxBorrowWaitNanos.get()),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    private PhysicalConnection takeValid() throws SQLException {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            if (physical.isValid()) {
+                return physical;
+            }
+            physical.destroy();
+        }
+        opened.incrementAndGet();
+        return new PhysicalConnection(DriverManager.getConnection(url, user, password));
+    }
+
+    private void giveBack(PhysicalConnection physical, boolean broken) {
+        active.decrementAndGet();
+        if (broken) {
+            physical.destroy();
+        } else {
+            idle.offerFirst(physical);
+        }
+        permits.release();
+    }
+
+    @Value
+    public static class Stats {
+        int active;
+        int idle;
+        int opened;
+        long borrows;
+        long avgBorrowWaitMicros;
+        long maxBorrowWaitMicros;
+        long statementCacheHits;
+        long statementCacheMisses;
+    }
+
+    private class PhysicalConnection {
+        private final Connection target;
+        private final Map<String, PreparedStatement> statements;
+
+        PhysicalConnection(Connection target) {
+            this.target = target;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        boolean isValid() {
+            try {
+                return !target.isClosed() && target.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void destroy() {
+            statements.values().forEach(this::closeQuietly);
+            statements.clear();
+            try {
+                target.close();
+            } catch (SQLException ignored) {
+                // соединение уже недоступно
+            }
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement cached = statements.get(sql);
+            if (cached != null && !cached.isClosed()) {
+                statementCacheHits.incrementAndGet();
+                cached.clearParameters();
+                return cachedView(cached);
+            }
+            statementCacheMisses.incrementAndGet();
+            PreparedStatement statement = target.prepareStatement(sql);
+            if (statementCacheSize > 0) {
+                statements.put(sql, statement);
+                return cachedView(statement);
+            }
+            return statement;
+        }
+
+        private PreparedStatement cachedView(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close")) {
+                            statement.clearParameters();
+                            return null;
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // закрываем при вытеснении из кэша, ошибка не важна
+            }
+        }
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private boolean released;
+        private boolean broken;
+
+        LeaseHandler(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return released || physical.target.isClosed();
+                case "prepareStatement":
+                    checkLeased();
+                    if (args.length == 1) {
+                        return cached((String) args[0]);
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    checkLeased();
+            }
+            return ConnectionPool.invoke(physical.target, method, args);
+        }
+
+        private PreparedStatement cached(String sql) throws SQLException {
+            try {
+                return physical.prepare(sql);
+            } catch (SQLException e) {
+                broken = true;
+                throw e;
+            }
+        }
+
+        private void checkLeased() throws SQLException {
+            if (released) {
+                throw new SQLException("Соединение уже возвращено в пул");
+            }
+        }
+
+        private void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                if (!physical.target.getAutoCommit()) {
+                    physical.target.rollback();
+                    physical.target.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                broken = true;
+            }
+            giveBack(physical, broken);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.netology.web.data;
+
+import com.github.javafaker.Faker;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор тестовых данных для DataHelper.
+ * У каждого потока свой SplittableRandom, а значения берутся из неизменяемых пулов: имена владельцев и
+ * 15-значные номера карт заранее сгенерированы от базового зерна data.seed, месяцы, годы и CVC — все
+ * строки из 1–3 цифр. Поэтому генерация потокобезопасна, почти не аллоцирует и воспроизводима:
+ * reseed() перед тестом дает ту же последовательность данных.
+ */
+public class DataEngine {
+
+    private static final long baseSeed = Long.getLong("data.seed", System.nanoTime());
+    private static final int poolSize = Integer.getInteger("data.pool.size", 4096);
+    private static final SplittableRandom root = new SplittableRandom(baseSeed);
+    private static final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(DataEngine::split);
+    private static final char[] DIGITS = "0123456789".toCharArray();
+    private static final char[] LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private DataEngine() {
+    }
+
+    public static long getBaseSeed() {
+        return baseSeed;
+    }
+
+    public static long reseed(String key) {
+        long seed = baseSeed ^ (key.hashCode() * 0x9E3779B97F4A7C15L);
+        random.set(new SplittableRandom(seed));
+        return seed;
+    }
+
+    public static String holder() {
+        return pick(Pools.HOLDERS);
+    }
+
+    public static String holderCyrillic() {
+        return pick(Pools.HOLDERS_RU);
+    }
+
+    /**
+     * Случайная строка из count цифр; до трех цифр (CVC, месяц) — из пула всех таких строк.
+     */
+    public static String digits(int count) {
+        if (count > 0 && count < Pools.NUMBERS.length) {
+            return pick(Pools.NUMBERS[count]);
+        }
+        SplittableRandom current = random.get();
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = DIGITS[current.nextInt(DIGITS.length)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Число 0–99 двумя цифрами с ведущим нулем: месяц или год срока действия карты.
+     */
+    public static String twoDigits(int value) {
+        return Pools.NUMBERS[2][Math.floorMod(value, 100)];
+    }
+
+    public static String fifteenDigitNumber() {
+        return pick(Pools.FIFTEEN_DIGIT_NUMBERS);
+    }
+
+    public static String letter() {
+        return String.valueOf(LETTERS[random.get().nextInt(LETTERS.length)]);
+    }
+
+    public static String charsFrom(String alphabet, int count) {
+        SplittableRandom current = random.get();
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = alphabet.charAt(current.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+    private static String pick(String[] pool) {
+        return pool[random.get().nextInt(pool.length)];
+    }
+
+    private static synchronized SplittableRandom split() {
+        return root.split();
+    }
+
+    private static class Pools {
+        static final String[] HOLDERS = generate(new Locale("en"), baseSeed);
+        static final String[] HOLDERS_RU = generate(new Locale("ru"), baseSeed + 1);
+        static final String[] FIFTEEN_DIGIT_NUMBERS = generateNumbers(new SplittableRandom(baseSeed + 2), 4, 4, 4, 3);
+        static final String[][] NUMBERS = {{""}, numbers(1), numbers(2), numbers(3)};
+
+        private static String[] generate(Locale locale, long seed) {
+            Faker faker = new Faker(locale, new Random(seed));
+            String[] pool = new String[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                pool[i] = faker.name().firstName().toUpperCase(Locale.ROOT) + " "
+                        + faker.name().lastName().toUpperCase(Locale.ROOT);
+            }
+            return pool;
+        }
+
+        private static String[] generateNumbers(SplittableRandom seeded, int... groups) {
+            String[] pool = new String[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                StringBuilder number = new StringBuilder();
+                for (int g = 0; g < groups.length; g++) {
+                    if (g > 0) {
+                        number.append(' ');
+                    }
+                    for (int d = 0; d < groups[g]; d++) {
+                        number.append(DIGITS[seeded.nextInt(DIGITS.length)]);
+                    }
+                }
+                pool[i] = number.toString();
+            }
+            return pool;
+        }
+
+        private static String[] numbers(int width) {
+            String[] pool = new String[(int) Math.pow(10, width)];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = String.format(Locale.ROOT, "%0" + width + "d", i);
+            }
+            return pool;
+        }
+    }
+}
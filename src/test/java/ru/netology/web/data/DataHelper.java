@@ -1,17 +1,10 @@
 package ru.netology.web.data;
 
-import com.github.javafaker.Faker;
+import lombok.Value;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.Random;
-import java.util.stream.Collectors;
 
 public class DataHelper {
 
-    private static Faker faker = new Faker(new Locale("en"));
-    private static Faker fakerRu = new Faker(new Locale("ru"));
-
     private DataHelper() {
     }
 
@@ -25,13 +18,13 @@ public class DataHelper {
         } else if (status.equalsIgnoreCase("ZERO")) {
             return "0000 0000 0000 0000";
         } else if (status.equalsIgnoreCase("FIFTEEN")) {
-            return faker.numerify("#### #### #### ###");
+            return DataEngine.fifteenDigitNumber();
         }
         return null;
     }
 
     public static String generateMonthPlus(int shift) {
-        return LocalDate.now().plusMonths(shift).format(DateTimeFormatter.ofPattern("MM"));
+        return DataEngine.twoDigits(LocalDate.now().plusMonths(shift).getMonthValue());
     }
 
     public static String getZero() {
@@ -43,42 +36,49 @@ public class DataHelper {
     }
 
     public static String getMonthOneDig() {
-        return faker.numerify("#");
+        return DataEngine.digits(1);
     }
 
     public static String generateYearPlus(int shift) {
-        return LocalDate.now().plusYears(shift).format(DateTimeFormatter.ofPattern("yy"));
+        return DataEngine.twoDigits(LocalDate.now().plusYears(shift).getYear());
     }
 
     public static String generateHolder() {
-        return faker.name().firstName().toUpperCase(Locale.ROOT) + " "
-                + faker.name().lastName().toUpperCase(Locale.ROOT);
+        return DataEngine.holder();
     }
 
     public static String generateHolderCyrillic() {
-        return fakerRu.name().firstName().toUpperCase(Locale.ROOT) + " "
-                + fakerRu.name().lastName().toUpperCase(Locale.ROOT);
+        return DataEngine.holderCyrillic();
     }
 
     public static String generateHolderNumeric() {
-        return faker.numerify("########");
+        return DataEngine.digits(8);
     }
 
     public static String generateHolderOneSymbol() {
-        return faker.letterify("W").toUpperCase(Locale.ROOT);
+        return DataEngine.letter();
     }
 
     public static String generateHolderSpecChar(int streamSize) {
-        String special = "!@#$%^&*()";
-        return new Random().ints(streamSize, 0, special.length())
-                .mapToObj(special::charAt)
-                .map(Object::toString)
-                .collect(Collectors.joining());
+        return DataEngine.charsFrom("!@#$%^&*()", streamSize);
     }
 
     public static String generateCVC(int amount) {
-        String str = "###";
-        return faker.numerify(str.substring(0, amount));
+        return DataEngine.digits(amount);
+    }
+
+    public static CardInfo generateValidCard(String status) {
+        return new CardInfo(getCardNumberByStatus(status), generateMonthPlus(0), generateYearPlus(1),
+                generateHolder(), generateCVC(3));
+    }
+
+    @Value
+    public static class CardInfo {
+        String number;
+        String month;
+        String year;
+        String holder;
+        String cvc;
     }
 }
 
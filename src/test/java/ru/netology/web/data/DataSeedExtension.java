@@ -0,0 +1,18 @@
+package ru.netology.web.data;
+
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Перед каждым тестом задает зерно генератора данных по базовому зерну и идентификатору теста.
+ * Упавший тест воспроизводится запуском с тем же -Ddata.seed из вложения в отчете.
+ */
+public class DataSeedExtension implements BeforeEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        long seed = DataEngine.reseed(context.getUniqueId());
+        Allure.addAttachment("Data seed", "data.seed=" + DataEngine.getBaseSeed() + ", test seed=" + seed);
+    }
+}
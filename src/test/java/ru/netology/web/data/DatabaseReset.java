@@ -0,0 +1,164 @@
+package ru.netology.web.data;
+
+import lombok.SneakyThrows;
+import ru.netology.web.report.StepTimer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сброс таблиц между тестами. Стратегия задается свойством db.reset:
+ * scope — строки удаляет сам PurchaseScope (единственный вариант для параллельного запуска),
+ * delete — три DELETE в одной транзакции, truncate — TRUNCATE таблиц за один проход,
+ * template — пересоздание базы PostgreSQL из снимка-шаблона, снятого в prepare().
+ */
+public class DatabaseReset {
+
+    public enum Strategy {
+        SCOPE, DELETE, TRUNCATE, TEMPLATE
+    }
+
+    private static final String[] TABLES = {"order_entity", "payment_entity", "credit_request_entity"};
+    private static final Pattern DB_URL = Pattern.compile("(jdbc:postgresql://[^/]+/)([^?]+)(.*)");
+    private static final int TEMPLATE_ATTEMPTS = 5;
+
+    private static final Strategy strategy = resolveStrategy();
+    private static boolean prepared;
+
+    private DatabaseReset() {
+    }
+
+    public static Strategy getStrategy() {
+        return strategy;
+    }
+
+    public static synchronized void prepare() {
+        if (prepared) {
+            return;
+        }
+        if (strategy == Strategy.TEMPLATE) {
+            cloneDatabase(databaseName(), snapshotName());
+        }
+        prepared = true;
+    }
+
+    /**
+     * Сбрасывает таблицы после теста и возвращает длительность сброса в мс. При стратегии scope сброс —
+     * это удаление строк окна покупки теста (scope.close()); остальные стратегии чистят таблицы целиком,
+     * и удалять строки окна отдельно не нужно.
+     */
+    public static long reset(PurchaseScope scope) {
+        switch (strategy) {
+            case DELETE:
+                return timed(DatabaseReset::deleteAll);
+            case TRUNCATE:
+                return timed(DatabaseReset::truncateAll);
+            case TEMPLATE:
+                return timed(() -> {
+                    prepare();
+                    cloneDatabase(snapshotName(), databaseName());
+                });
+            default:
+                return scope == null ? 0 : timed(scope::close);
+        }
+    }
+
+    private static long timed(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        long duration = System.nanoTime() - start;
+        StepTimer.record("db.reset", System.currentTimeMillis(), duration);
+        return duration / 1_000_000;
+    }
+
+    @SneakyThrows
+    static void deleteAll() {
+        try (Connection conn = SQLHelper.getConn()) {
+            conn.setAutoCommit(false);
+            try (Statement statement = conn.createStatement()) {
+                for (String table : TABLES) {
+                    statement.addBatch("DELETE FROM " + table);
+                }
+                statement.executeBatch();
+                conn.commit();
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void truncateAll() {
+        try (Connection conn = SQLHelper.getConn(); Statement statement = conn.createStatement()) {
+            for (String sql : SQLHelper.getDialect().getTruncateSql(TABLES)) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @SneakyThrows
+    private static void cloneDatabase(String source, String target) {
+        SQLHelper.closeIdleConnections();
+        try (Connection conn = DriverManager.getConnection(maintenanceUrl(),
+                System.getProperty("db.user"), System.getProperty("db.password"));
+             Statement statement = conn.createStatement()) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    terminate(statement, source);
+                    terminate(statement, target);
+                    statement.execute("DROP DATABASE IF EXISTS " + target);
+                    statement.execute("CREATE DATABASE " + target + " TEMPLATE " + source);
+                    return;
+                } catch (SQLException e) {
+                    // приложение успело переподключиться к базе между terminate и DROP/CREATE
+                    if (attempt == TEMPLATE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void terminate(Statement statement, String database) throws SQLException {
+        statement.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                + "WHERE datname = '" + database + "' AND pid <> pg_backend_pid()");
+    }
+
+    private static String databaseName() {
+        return urlMatcher().group(2);
+    }
+
+    private static String snapshotName() {
+        return databaseName() + "_snapshot";
+    }
+
+    private static String maintenanceUrl() {
+        Matcher matcher = urlMatcher();
+        return matcher.group(1) + "postgres" + matcher.group(3);
+    }
+
+    private static Matcher urlMatcher() {
+        Matcher matcher = DB_URL.matcher(System.getProperty("db.url"));
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Стратегия template доступна только для PostgreSQL");
+        }
+        return matcher;
+    }
+
+    private static Strategy resolveStrategy() {
+        Strategy value = Strategy.valueOf(System.getProperty("db.reset", "scope").toUpperCase(Locale.ROOT));
+        if (value != Strategy.SCOPE && (Boolean.getBoolean("junit.jupiter.execution.parallel.enabled")
+                || Integer.getInteger("test.forks", 1) > 1)) {
+            throw new IllegalStateException("При параллельном запуске и test.forks > 1 поддерживается только "
+                    + "db.reset=scope");
+        }
+        if (value == Strategy.TEMPLATE && SQLHelper.getDialect() != Dialect.POSTGRES) {
+            throw new IllegalStateException("Стратегия template доступна только для PostgreSQL");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.netology.web.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Различия в SQL между СУБД, с которыми умеет работать приложение.
+ */
+public enum Dialect {
+    POSTGRES("reWriteBatchedInserts=true",
+            "SELECT a.attname FROM pg_index i JOIN pg_class t ON t.oid = i.indrelid "
+                    + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = i.indkey[0] WHERE t.relname = ?",
+            "SELECT count(*), count(*) FILTER (WHERE state = 'idle') FROM pg_stat_activity "
+                    + "WHERE datname = current_database()") {
+        @Override
+        public String getExplainSql(String sql, boolean analyze) {
+            return "EXPLAIN (" + (analyze ? "ANALYZE, " : "") + "FORMAT JSON) " + sql;
+        }
+
+        @Override
+        public int getCursorFetchSize(int rows) {
+            return rows;
+        }
+
+        @Override
+        public List<String> getTruncateSql(String... tables) {
+            return List.of("TRUNCATE " + String.join(", ", tables));
+        }
+    },
+    MYSQL("rewriteBatchedStatements=true",
+            "SELECT COLUMN_NAME FROM information_schema.statistics "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND SEQ_IN_INDEX = 1",
+            "SELECT COUNT(*), COALESCE(SUM(COMMAND = 'Sleep'), 0) FROM information_schema.PROCESSLIST "
+                    + "WHERE DB = DATABASE()") {
+        @Override
+        public String getExplainSql(String sql, boolean analyze) {
+            return "EXPLAIN FORMAT=JSON " + sql;
+        }
+
+        @Override
+        public int getCursorFetchSize(int rows) {
+            return Integer.MIN_VALUE;
+        }
+
+        @Override
+        public List<String> getTruncateSql(String... tables) {
+            List<String> statements = new ArrayList<>();
+            for (String table : tables) {
+                statements.add("TRUNCATE TABLE " + table);
+            }
+            return statements;
+        }
+    };
+
+    private final String batchInsertsParameter;
+    private final String leadingIndexColumnsSql;
+    private final String serverConnectionsSql;
+
+    Dialect(String batchInsertsParameter, String leadingIndexColumnsSql, String serverConnectionsSql) {
+        this.batchInsertsParameter = batchInsertsParameter;
+        this.leadingIndexColumnsSql = leadingIndexColumnsSql;
+        this.serverConnectionsSql = serverConnectionsSql;
+    }
+
+    public static Dialect fromUrl(String url) {
+        if (url.startsWith("jdbc:postgresql:")) {
+            return POSTGRES;
+        } else if (url.startsWith("jdbc:mysql:")) {
+            return MYSQL;
+        }
+        throw new IllegalArgumentException("Неподдерживаемая СУБД: " + url);
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * URL, с которым драйвер склеивает пакет однотипных INSERT в многострочные.
+     */
+    public String withBatchInserts(String url) {
+        return url + (url.contains("?") ? "&" : "?") + batchInsertsParameter;
+    }
+
+    /**
+     * Первые столбцы всех индексов таблицы, переданной параметром.
+     */
+    public String getLeadingIndexColumnsSql() {
+        return leadingIndexColumnsSql;
+    }
+
+    /**
+     * Число соединений сервера к базе приложения: всего и простаивающих (idle в PostgreSQL, Sleep в MySQL).
+     */
+    public String getServerConnectionsSql() {
+        return serverConnectionsSql;
+    }
+
+    /**
+     * План запроса в JSON; analyze=true в PostgreSQL выполняет запрос и добавляет фактические время и строки.
+     */
+    public abstract String getExplainSql(String sql, boolean analyze);
+
+    /**
+     * fetchSize, при котором драйвер читает результат порциями, а не целиком: PostgreSQL открывает курсор
+     * (только вне autocommit), Connector/J без useCursorFetch читает построчно лишь при Integer.MIN_VALUE.
+     */
+    public abstract int getCursorFetchSize(int rows);
+
+    public abstract List<String> getTruncateSql(String... tables);
+}
@@ -0,0 +1,114 @@
+package ru.netology.web.data;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Классы эквивалентности полей формы покупки на генераторах DataHelper и покрывающие наборы сценариев
+ * из них для оплаты картой и кредита. Месяц и год проверяются приложением вместе как срок действия карты,
+ * поэтому в одном сценарии неверным может быть только одно из этих полей.
+ */
+public class FormModel {
+    public static final String NUMBER = "Номер карты";
+    public static final String MONTH = "Месяц";
+    public static final String YEAR = "Год";
+    public static final String HOLDER = "Владелец";
+    public static final String CVC = "CVC/CVV";
+
+    private static final String WRONG_FORMAT = "Неверный формат";
+    private static final String WRONG_TERM = "Неверно указан срок действия карты";
+    private static final String EXPIRED = "Истёк срок действия карты";
+
+    private static final List<List<Choice>> FIELDS = List.of(
+            List.of(new Choice(NUMBER, "APPROVED", () -> DataHelper.getCardNumberByStatus("APPROVED"), null),
+                    new Choice(NUMBER, "DECLINED", () -> DataHelper.getCardNumberByStatus("DECLINED"), null),
+                    new Choice(NUMBER, "FIFTEEN", () -> DataHelper.getCardNumberByStatus("FIFTEEN"), WRONG_FORMAT)),
+            List.of(new Choice(MONTH, "current", () -> DataHelper.generateMonthPlus(0), null),
+                    new Choice(MONTH, "zero", DataHelper::getZero, WRONG_TERM),
+                    new Choice(MONTH, "over", DataHelper::getMonthOver, WRONG_TERM),
+                    new Choice(MONTH, "one digit", DataHelper::getMonthOneDig, WRONG_FORMAT)),
+            List.of(new Choice(YEAR, "next", () -> DataHelper.generateYearPlus(1), null),
+                    new Choice(YEAR, "zero", DataHelper::getZero, EXPIRED),
+                    new Choice(YEAR, "plus six", () -> DataHelper.generateYearPlus(6), WRONG_TERM),
+                    new Choice(YEAR, "previous", () -> DataHelper.generateYearPlus(-1), EXPIRED)),
+            List.of(new Choice(HOLDER, "latin", DataHelper::generateHolder, null),
+                    new Choice(HOLDER, "cyrillic", DataHelper::generateHolderCyrillic, WRONG_FORMAT),
+                    new Choice(HOLDER, "numeric", DataHelper::generateHolderNumeric, WRONG_FORMAT),
+                    new Choice(HOLDER, "one symbol", DataHelper::generateHolderOneSymbol, WRONG_FORMAT),
+                    new Choice(HOLDER, "special chars", () -> DataHelper.generateHolderSpecChar(6), WRONG_FORMAT)),
+            List.of(new Choice(CVC, "three digits", () -> DataHelper.generateCVC(3), null),
+                    new Choice(CVC, "two digits", () -> DataHelper.generateCVC(2), WRONG_FORMAT),
+                    new Choice(CVC, "one digit", () -> DataHelper.generateCVC(1), WRONG_FORMAT)));
+
+    private FormModel() {
+    }
+
+    public static List<Scenario> scenarios(int strength) {
+        int[] sizes = new int[FIELDS.size() + 1];
+        sizes[0] = 2;
+        for (int i = 0; i < FIELDS.size(); i++) {
+            sizes[i + 1] = FIELDS.get(i).size();
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int[] row : PairwiseGenerator.generate(sizes, strength, FormModel::isAllowed)) {
+            List<Choice> choices = new ArrayList<>();
+            for (int i = 0; i < FIELDS.size(); i++) {
+                choices.add(FIELDS.get(i).get(row[i + 1]));
+            }
+            scenarios.add(new Scenario(row[0] == 1, choices));
+        }
+        return scenarios;
+    }
+
+    private static boolean isAllowed(int[] row) {
+        return row[2] == 0 || row[3] == 0;
+    }
+
+    @Value
+    public static class Choice {
+        String field;
+        String name;
+        Supplier<String> generator;
+        String error;
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return field + ": " + name;
+        }
+    }
+
+    @Value
+    public static class Scenario {
+        boolean credit;
+        List<Choice> choices;
+
+        public boolean isValid() {
+            return choices.stream().allMatch(Choice::isValid);
+        }
+
+        public Choice getChoice(String field) {
+            return choices.stream().filter(choice -> choice.getField().equals(field)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Нет поля " + field));
+        }
+
+        public DataHelper.CardInfo toCard() {
+            return new DataHelper.CardInfo(getChoice(NUMBER).getGenerator().get(), getChoice(MONTH).getGenerator().get(),
+                    getChoice(YEAR).getGenerator().get(), getChoice(HOLDER).getGenerator().get(),
+                    getChoice(CVC).getGenerator().get());
+        }
+
+        @Override
+        public String toString() {
+            return (credit ? "credit" : "debit") + " | "
+                    + choices.stream().map(Choice::toString).collect(Collectors.joining(", "));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.netology.web.data;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+import org.openqa.selenium.json.Json;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Журнал запросов симулятора банка (GET /requests на gate.url): какой id шлюз выдал на какой запрос.
+ * Запрос относится к карте, если совпадает номер и все прочие поля, которые приложение передало шлюзу;
+ * поля, которых в запросе нет, не сравниваются, а пробелы, регистр и ведущие нули не учитываются.
+ */
+public class GateJournal {
+    private static final Json json = new Json();
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private static final String url = System.getProperty("gate.url", "http://localhost:9999");
+    private static final String[] CARD_FIELDS = {"month", "year", "holder", "cvc"};
+
+    private GateJournal() {
+    }
+
+    /**
+     * Номер последнего запроса в журнале.
+     */
+    public static long last() {
+        return ((Number) fetch("").get("last")).longValue();
+    }
+
+    /**
+     * Запросы после номера after, относящиеся к карте.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Entry> find(long after, DataHelper.CardInfo card) {
+        List<Entry> entries = new ArrayList<>();
+        for (Map<String, Object> request : (List<Map<String, Object>>) fetch("?after=" + after).get("requests")) {
+            if (matches(request, card)) {
+                entries.add(new Entry(((Number) request.get("seq")).longValue(), (String) request.get("path"),
+                        (String) request.get("id")));
+            }
+        }
+        return entries;
+    }
+
+    private static boolean matches(Map<String, Object> request, DataHelper.CardInfo card) {
+        if (!normalize(request.get("number")).equals(normalize(card.getNumber()))) {
+            return false;
+        }
+        String[] expected = {card.getMonth(), card.getYear(), card.getHolder(), card.getCvc()};
+        for (int i = 0; i < CARD_FIELDS.length; i++) {
+            Object actual = request.get(CARD_FIELDS[i]);
+            if (actual != null && !normalize(actual).equals(normalize(expected[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(Object value) {
+        String text = String.valueOf(value).replaceAll("\\s", "").toUpperCase(Locale.ROOT);
+        return text.matches("\\d+") ? text.replaceFirst("^0+(?=.)", "") : text;
+    }
+
+    @SneakyThrows
+    private static Map<String, Object> fetch(String query) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/requests" + query))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Журнал шлюза " + url + " недоступен: HTTP " + response.statusCode());
+        }
+        return json.toType(response.body(), Json.MAP_TYPE);
+    }
+
+    @Value
+    public static class Entry {
+        long seq;
+        String path;
+        String id;
+    }
+}
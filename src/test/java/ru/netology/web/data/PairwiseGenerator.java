@@ -0,0 +1,111 @@
+package ru.netology.web.data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Покрывающий набор силы t (t = 2 — попарный) для небольших моделей.
+ * Перебирает все допустимые комбинации значений и жадно берет ту, что покрывает больше всего
+ * еще не покрытых t-кортежей. Кортежи, не встречающиеся ни в одной допустимой комбинации, не требуются.
+ * Результат детерминирован: при равенстве выбирается комбинация, идущая раньше в порядке перебора.
+ */
+public class PairwiseGenerator {
+
+    private PairwiseGenerator() {
+    }
+
+    public static List<int[]> generate(int[] sizes, int strength, Predicate<int[]> allowed) {
+        if (strength < 1 || strength > sizes.length) {
+            throw new IllegalArgumentException("Сила покрытия должна быть от 1 до " + sizes.length + ": " + strength);
+        }
+        int radix = 1;
+        for (int size : sizes) {
+            radix = Math.max(radix, size);
+        }
+        List<int[]> positions = positions(sizes.length, strength);
+        List<int[]> candidates = new ArrayList<>();
+        List<long[]> candidateTuples = new ArrayList<>();
+        Set<Long> uncovered = new HashSet<>();
+        int[] row = new int[sizes.length];
+        do {
+            if (allowed.test(row)) {
+                long[] tuples = tuples(row, positions, radix);
+                candidates.add(row.clone());
+                candidateTuples.add(tuples);
+                for (long tuple : tuples) {
+                    uncovered.add(tuple);
+                }
+            }
+        } while (next(row, sizes));
+
+        List<int[]> result = new ArrayList<>();
+        while (!uncovered.isEmpty()) {
+            int best = -1;
+            int bestGain = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                int gain = 0;
+                for (long tuple : candidateTuples.get(i)) {
+                    if (uncovered.contains(tuple)) {
+                        gain++;
+                    }
+                }
+                if (gain > bestGain) {
+                    best = i;
+                    bestGain = gain;
+                }
+            }
+            result.add(candidates.get(best));
+            for (long tuple : candidateTuples.get(best)) {
+                uncovered.remove(tuple);
+            }
+        }
+        return result;
+    }
+
+    private static long[] tuples(int[] row, List<int[]> positions, int radix) {
+        long[] tuples = new long[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            long key = i;
+            for (int position : positions.get(i)) {
+                key = key * radix + row[position];
+            }
+            tuples[i] = key;
+        }
+        return tuples;
+    }
+
+    private static List<int[]> positions(int count, int strength) {
+        List<int[]> result = new ArrayList<>();
+        int[] combination = new int[strength];
+        for (int i = 0; i < strength; i++) {
+            combination[i] = i;
+        }
+        while (true) {
+            result.add(combination.clone());
+            int i = strength - 1;
+            while (i >= 0 && combination[i] == count - strength + i) {
+                i--;
+            }
+            if (i < 0) {
+                return result;
+            }
+            combination[i]++;
+            for (int j = i + 1; j < strength; j++) {
+                combination[j] = combination[j - 1] + 1;
+            }
+        }
+    }
+
+    private static boolean next(int[] row, int[] sizes) {
+        for (int i = row.length - 1; i >= 0; i--) {
+            if (++row[i] < sizes[i]) {
+                return true;
+            }
+            row[i] = 0;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.netology.web.data;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Окно одной покупки. Шлюз выдает на каждый запрос новый id, а приложение сохраняет его
+ * в transaction_id платежа или bank_id заявки и в payment_id заказа. При открытии окно запоминает
+ * номер последнего запроса в журнале шлюза, затем находит в журнале запрос своей карты и по его id —
+ * строки своей покупки, без блокировок и независимо от параллельных потоков, форков и прошлых прогонов.
+ * При закрытии удаляются только строки с этим id.
+ */
+public class PurchaseScope implements AutoCloseable {
+
+    private final DataHelper.CardInfo card;
+    private final long journalMark;
+    private String gateId;
+
+    private PurchaseScope(DataHelper.CardInfo card, long journalMark) {
+        this.card = card;
+        this.journalMark = journalMark;
+    }
+
+    public static PurchaseScope open(DataHelper.CardInfo card) {
+        return new PurchaseScope(card, GateJournal.last());
+    }
+
+    /**
+     * id, выданный шлюзом на покупку этой картой, или null, если шлюз еще не ответил на нее или отказал без id.
+     */
+    private String gateId() {
+        if (gateId == null) {
+            List<String> ids = GateJournal.find(journalMark, card).stream()
+                    .map(GateJournal.Entry::getId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (ids.size() > 1) {
+                throw new IllegalStateException("Шлюз выдал несколько id на покупки картой " + card.getNumber()
+                        + " после открытия окна: " + ids + ". Покупки неразличимы по полям, переданным шлюзу");
+            }
+            gateId = ids.isEmpty() ? null : ids.get(0);
+        }
+        return gateId;
+    }
+
+    private String awaitGateId() {
+        return Await.until("ответ шлюза на покупку картой " + card.getNumber(), this::gateId);
+    }
+
+    @Override
+    public void close() {
+        String id = gateId();
+        if (id == null) {
+            return;
+        }
+        SQLHelper.deleteBy("order_entity", "payment_id", id);
+        SQLHelper.deleteBy("payment_entity", "transaction_id", id);
+        SQLHelper.deleteBy("credit_request_entity", "bank_id", id);
+    }
+
+    public SQLHelper.PaymentEntity findPayment() {
+        String id = gateId();
+        return id == null ? null : SQLHelper.getPaymentEntityByTransactionId(id);
+    }
+
+    public SQLHelper.CreditRequestEntity findCredit() {
+        String id = gateId();
+        return id == null ? null : SQLHelper.getCreditRequestEntityByBankId(id);
+    }
+
+    public SQLHelper.OrderEntity findOrder() {
+        String id = gateId();
+        return id == null ? null : SQLHelper.getOrderEntityByPaymentId(id);
+    }
+
+    public SQLHelper.PaymentEntity awaitPayment() {
+        String id = awaitGateId();
+        String description = "платеж " + id + " в payment_entity";
+        if (ChangeFeed.isEnabled()) {
+            return Await.future(description, ChangeFeed.get().paymentByTransactionId(id));
+        }
+        return Await.until(description, () -> SQLHelper.getPaymentEntityByTransactionId(id));
+    }
+
+    public SQLHelper.CreditRequestEntity awaitCredit() {
+        String id = awaitGateId();
+        String description = "заявка " + id + " в credit_request_entity";
+        if (ChangeFeed.isEnabled()) {
+            return Await.future(description, ChangeFeed.get().creditByBankId(id));
+        }
+        return Await.until(description, () -> SQLHelper.getCreditRequestEntityByBankId(id));
+    }
+
+    public SQLHelper.OrderEntity awaitOrderFor(SQLHelper.PaymentEntity payment) {
+        String description = "заказ для платежа " + payment.getTransaction_id();
+        if (ChangeFeed.isEnabled()) {
+            return Await.future(description, ChangeFeed.get().orderByPaymentId(payment.getTransaction_id()));
+        }
+        return Await.until(description, () -> SQLHelper.getOrderEntityByPaymentId(payment.getTransaction_id()));
+    }
+
+    public SQLHelper.OrderEntity awaitOrderFor(SQLHelper.CreditRequestEntity credit) {
+        String description = "заказ для кредита " + credit.getId();
+        if (ChangeFeed.isEnabled()) {
+            return Await.future(description, ChangeFeed.get().orderByCreditId(credit.getId()));
+        }
+        return Await.until(description, () -> SQLHelper.getOrderEntityByCreditId(credit.getId()));
+    }
+}
@@ -0,0 +1,356 @@
+package ru.netology.web.data;
+
+import lombok.Value;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Профилирование SQL при -Ddb.profile=true.
+ * Для каждого запроса SQLHelper при первом вызове снимается план (EXPLAIN ANALYZE в PostgreSQL,
+ * EXPLAIN FORMAT=JSON в MySQL), все вызовы замеряются. Запросы приложения к таблицам покупки берутся
+ * из pg_stat_statements или performance_schema как разница между снимками в начале и в конце прогона.
+ * Отчет отмечает последовательные просмотры, сортировки без индекса и столбцы без индекса.
+ */
+public class QueryProfiler {
+    private static final boolean enabled = Boolean.getBoolean("db.profile");
+    private static final Path report = Paths.get(System.getProperty("db.profile.report", "build/reports/db-profile"))
+            .resolve("query-profile-" + ProcessHandle.current().pid() + ".txt");
+    private static final List<String> TABLES = List.of("payment_entity", "credit_request_entity", "order_entity");
+    private static final List<String> FILTER_COLUMNS = List.of("payment_entity.created",
+            "payment_entity.transaction_id", "credit_request_entity.created", "credit_request_entity.bank_id",
+            "order_entity.created", "order_entity.payment_id", "order_entity.credit_id");
+    private static final QueryRunner runner = new QueryRunner();
+
+    private static final Map<String, SuiteQuery> suite = new ConcurrentHashMap<>();
+    private static Map<String, ServerStatement> statementsAtStart = Map.of();
+    private static Map<String, long[]> tablesAtStart = Map.of();
+
+    private QueryProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void start() {
+        statementsAtStart = serverStatements(new ArrayList<>());
+        tablesAtStart = tableScans(new ArrayList<>());
+    }
+
+    static void explain(String sql, boolean analyze, Object... params) {
+        if (!enabled || suite.containsKey(sql)) {
+            return;
+        }
+        SuiteQuery query = new SuiteQuery(sql);
+        if (suite.putIfAbsent(sql, query) != null) {
+            return;
+        }
+        try (Connection conn = SQLHelper.getConn()) {
+            String plan = runner.query(conn, SQLHelper.getDialect().getExplainSql(sql, analyze),
+                    rs -> rs.next() ? rs.getString(1) : null, params);
+            query.describe(new Json().toType(plan, Object.class));
+        } catch (SQLException | RuntimeException e) {
+            query.flags.add("план не снят: " + e.getMessage());
+        }
+    }
+
+    static void record(String sql, long nanos) {
+        SuiteQuery query = suite.get(sql);
+        if (query != null) {
+            query.calls.increment();
+            query.nanos.add(nanos);
+            query.maxNanos.accumulate(nanos);
+        }
+    }
+
+    public static synchronized Path writeReport() {
+        List<String> notes = new ArrayList<>();
+        Set<String> unindexed = unindexedColumns(notes);
+        Map<String, ServerStatement> statements = serverStatements(notes);
+        Map<String, long[]> tables = tableScans(notes);
+        Set<String> suiteSql = suite.keySet().stream().map(QueryProfiler::normalize).collect(Collectors.toSet());
+
+        StringBuilder text = new StringBuilder();
+        text.append("== Запросы тестов (SQLHelper), ").append(SQLHelper.getDialect().getName()).append(" ==\n");
+        text.append(String.format(Locale.ROOT, "%7s %10s %9s %9s %10s %9s  %s%n",
+                "calls", "total ms", "mean ms", "max ms", "plan rows", "plan ms", "SQL"));
+        suite.values().stream()
+                .sorted((a, b) -> Long.compare(b.nanos.sum(), a.nanos.sum()))
+                .forEach(query -> {
+                    long calls = query.calls.sum();
+                    double total = query.nanos.sum() / 1e6;
+                    text.append(String.format(Locale.ROOT, "%7d %10.1f %9.2f %9.2f %10s %9s  %s%n", calls, total,
+                            calls == 0 ? 0 : total / calls, query.maxNanos.get() / 1e6,
+                            query.planRows < 0 ? "—" : String.valueOf(query.planRows),
+                            query.planMillis < 0 ? "—" : String.format(Locale.ROOT, "%.2f", query.planMillis),
+                            query.sql));
+                    flags(text, query.flags, query.sql, unindexed);
+                });
+
+        text.append("\n== Запросы приложения (")
+                .append(SQLHelper.getDialect() == Dialect.POSTGRES ? "pg_stat_statements" : "performance_schema")
+                .append(") ==\n");
+        text.append(String.format(Locale.ROOT, "%7s %10s %9s %10s %10s %9s  %s%n",
+                "calls", "total ms", "mean ms", "rows", "examined", "no index", "SQL"));
+        statements.values().stream()
+                .map(statement -> statement.minus(statementsAtStart.get(statement.getKey())))
+                .filter(statement -> statement.getCalls() > 0 && isApplication(statement.getText(), suiteSql))
+                .sorted((a, b) -> Double.compare(b.getMillis(), a.getMillis()))
+                .forEach(statement -> {
+                    text.append(String.format(Locale.ROOT, "%7d %10.1f %9.2f %10d %10s %9s  %s%n",
+                            statement.getCalls(), statement.getMillis(), statement.getMillis() / statement.getCalls(),
+                            statement.getRows(), statement.getExamined() < 0 ? "—" : statement.getExamined(),
+                            statement.getNoIndex() < 0 ? "—" : statement.getNoIndex(),
+                            statement.getText().replaceAll("\\s+", " ")));
+                    List<String> statementFlags = new ArrayList<>();
+                    if (statement.getNoIndex() > 0) {
+                        statementFlags.add("выполнялся без подходящего индекса " + statement.getNoIndex() + " раз");
+                    }
+                    flags(text, statementFlags, statement.getText(), unindexed);
+                });
+
+        text.append("\n== Таблицы ==\n");
+        String[] labels = SQLHelper.getDialect() == Dialect.POSTGRES
+                ? new String[]{"seq scans", "index scans"} : new String[]{"reads without index", "reads by index"};
+        for (String table : TABLES) {
+            long[] end = tables.getOrDefault(table, new long[2]);
+            long[] begin = tablesAtStart.getOrDefault(table, new long[2]);
+            long scans = end[0] - begin[0];
+            long indexed = end[1] - begin[1];
+            text.append(String.format(Locale.ROOT, "%-22s %s=%d %s=%d%s%n", table, labels[0], scans, labels[1], indexed,
+                    scans > indexed ? "  ! чтение в основном без индекса" : ""));
+        }
+
+        text.append("\n== Индексы ==\n");
+        if (unindexed.isEmpty()) {
+            text.append("У всех столбцов поиска и сортировки есть индекс\n");
+        }
+        unindexed.forEach(column -> text.append("! нет индекса, начинающегося со столбца ").append(column).append('\n'));
+        notes.forEach(note -> text.append("\nПримечание: ").append(note).append('\n'));
+
+        try {
+            Files.createDirectories(report.getParent());
+            Files.write(report, text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return report;
+    }
+
+    private static void flags(StringBuilder text, Collection<String> flags, String sql, Set<String> unindexed) {
+        List<String> all = new ArrayList<>(flags);
+        String lower = sql.toLowerCase(Locale.ROOT);
+        for (String column : unindexed) {
+            String[] parts = column.split("\\.");
+            if (lower.contains(parts[0]) && lower.contains(parts[1])) {
+                all.add("использует " + column + " без индекса");
+            }
+        }
+        all.forEach(flag -> text.append(String.format(Locale.ROOT, "%60s! %s%n", "", flag)));
+    }
+
+    private static boolean isApplication(String sql, Set<String> suiteSql) {
+        String normalized = normalize(sql);
+        return !suiteSql.contains(normalized) && !normalized.startsWith("explain")
+                && !normalized.startsWith("delete") && !normalized.startsWith("truncate");
+    }
+
+    private static String normalize(String sql) {
+        return sql.toLowerCase(Locale.ROOT)
+                .replaceAll("[`\"]", "")
+                .replaceAll("\\$\\d+|\\?|'[^']*'|\\b\\d+(\\.\\d+)?\\b", "?")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static Set<String> unindexedColumns(List<String> notes) {
+        Map<String, List<String>> indexed = new HashMap<>();
+        for (String table : TABLES) {
+            indexed.put(table, query(notes, "индексы " + table, SQLHelper.getDialect().getLeadingIndexColumnsSql(),
+                    rs -> {
+                        List<String> columns = new ArrayList<>();
+                        while (rs.next()) {
+                            columns.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                        }
+                        return columns;
+                    }, table));
+        }
+        return FILTER_COLUMNS.stream()
+                .filter(column -> {
+                    List<String> columns = indexed.get(column.substring(0, column.indexOf('.')));
+                    return columns != null && !columns.contains(column.substring(column.indexOf('.') + 1));
+                })
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Map<String, ServerStatement> serverStatements(List<String> notes) {
+        ResultSetHandler<Map<String, ServerStatement>> handler = rs -> {
+            Map<String, ServerStatement> result = new LinkedHashMap<>();
+            while (rs.next()) {
+                result.put(rs.getString(1), new ServerStatement(rs.getString(1), rs.getString(2), rs.getLong(3),
+                        rs.getDouble(4), rs.getLong(5), rs.getLong(6), rs.getLong(7)));
+            }
+            return result;
+        };
+        if (SQLHelper.getDialect() == Dialect.POSTGRES) {
+            Boolean pg13 = query(notes, "pg_stat_statements", "SELECT EXISTS (SELECT 1 FROM information_schema.columns "
+                    + "WHERE table_name = 'pg_stat_statements' AND column_name = 'total_exec_time')", rs -> {
+                rs.next();
+                return rs.getBoolean(1);
+            });
+            Map<String, ServerStatement> result = query(notes,
+                    "pg_stat_statements (нужны shared_preload_libraries=pg_stat_statements и CREATE EXTENSION)",
+                    "SELECT queryid::text, query, calls, " + (Boolean.TRUE.equals(pg13) ? "total_exec_time" : "total_time")
+                            + ", rows, -1, -1 FROM pg_stat_statements WHERE "
+                            + mentionsTables("query ILIKE"),
+                    handler);
+            return result == null ? Map.of() : result;
+        }
+        Map<String, ServerStatement> result = query(notes, "performance_schema.events_statements_summary_by_digest",
+                "SELECT DIGEST, DIGEST_TEXT, COUNT_STAR, SUM_TIMER_WAIT / 1000000000, "
+                        + "SUM_ROWS_SENT + SUM_ROWS_AFFECTED, SUM_ROWS_EXAMINED, "
+                        + "SUM_NO_INDEX_USED + SUM_NO_GOOD_INDEX_USED "
+                        + "FROM performance_schema.events_statements_summary_by_digest "
+                        + "WHERE SCHEMA_NAME = DATABASE() AND ("
+                        + mentionsTables("DIGEST_TEXT LIKE") + ")",
+                handler);
+        return result == null ? Map.of() : result;
+    }
+
+    private static String mentionsTables(String condition) {
+        return TABLES.stream().map(table -> condition + " '%" + table + "%'").collect(Collectors.joining(" OR "));
+    }
+
+    private static Map<String, long[]> tableScans(List<String> notes) {
+        String names = TABLES.stream().map(table -> "'" + table + "'").collect(Collectors.joining(", "));
+        String sql = SQLHelper.getDialect() == Dialect.POSTGRES
+                ? "SELECT relname, seq_scan, COALESCE(idx_scan, 0) FROM pg_stat_user_tables WHERE relname IN (" + names + ")"
+                : "SELECT OBJECT_NAME, SUM(CASE WHEN INDEX_NAME IS NULL THEN COUNT_READ ELSE 0 END), "
+                + "SUM(CASE WHEN INDEX_NAME IS NOT NULL THEN COUNT_READ ELSE 0 END) "
+                + "FROM performance_schema.table_io_waits_summary_by_index_usage "
+                + "WHERE OBJECT_SCHEMA = DATABASE() AND OBJECT_NAME IN (" + names + ") GROUP BY OBJECT_NAME";
+        Map<String, long[]> result = query(notes, "статистика чтения таблиц", sql, rs -> {
+            Map<String, long[]> scans = new HashMap<>();
+            while (rs.next()) {
+                scans.put(rs.getString(1), new long[]{rs.getLong(2), rs.getLong(3)});
+            }
+            return scans;
+        });
+        return result == null ? Map.of() : result;
+    }
+
+    private static <T> T query(List<String> notes, String source, String sql, ResultSetHandler<T> handler,
+                               Object... params) {
+        try (Connection conn = SQLHelper.getConn()) {
+            return runner.query(conn, sql, handler, params);
+        } catch (SQLException e) {
+            notes.add(source + " недоступно: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void walk(Object node, Consumer<Map<?, ?>> visitor) {
+        if (node instanceof Map) {
+            visitor.accept((Map<?, ?>) node);
+            ((Map<?, ?>) node).values().forEach(child -> walk(child, visitor));
+        } else if (node instanceof List) {
+            ((List<?>) node).forEach(child -> walk(child, visitor));
+        }
+    }
+
+    private static long number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? 0 : (long) Double.parseDouble(value.toString());
+    }
+
+    private static class SuiteQuery {
+        final String sql;
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final List<String> flags = new ArrayList<>();
+        volatile long planRows = -1;
+        volatile double planMillis = -1;
+
+        SuiteQuery(String sql) {
+            this.sql = sql;
+        }
+
+        void describe(Object plan) {
+            if (plan instanceof List) {
+                Map<?, ?> root = (Map<?, ?>) ((List<?>) plan).get(0);
+                Map<?, ?> top = (Map<?, ?>) root.get("Plan");
+                planRows = number(top.containsKey("Actual Rows") ? top.get("Actual Rows") : top.get("Plan Rows"));
+                if (root.get("Execution Time") instanceof Number) {
+                    planMillis = ((Number) root.get("Execution Time")).doubleValue();
+                }
+                walk(top, node -> {
+                    if ("Seq Scan".equals(node.get("Node Type"))) {
+                        flags.add("Seq Scan по " + node.get("Relation Name"));
+                    } else if ("Sort".equals(node.get("Node Type"))) {
+                        flags.add("Sort по " + node.get("Sort Key"));
+                    }
+                });
+                return;
+            }
+            long[] examined = new long[1];
+            walk(plan, node -> {
+                if ("ALL".equals(node.get("access_type"))) {
+                    flags.add("полный просмотр " + node.get("table_name"));
+                }
+                if (node.containsKey("rows_examined_per_scan")) {
+                    examined[0] += number(node.get("rows_examined_per_scan"));
+                }
+                if (Boolean.TRUE.equals(node.get("using_filesort"))) {
+                    flags.add("filesort");
+                }
+            });
+            planRows = examined[0];
+        }
+    }
+
+    @Value
+    private static class ServerStatement {
+        String key;
+        String text;
+        long calls;
+        double millis;
+        long rows;
+        long examined;
+        long noIndex;
+
+        ServerStatement minus(ServerStatement before) {
+            if (before == null) {
+                return this;
+            }
+            return new ServerStatement(key, text, calls - before.calls, millis - before.millis, rows - before.rows,
+                    examined < 0 ? -1 : examined - before.examined, noIndex < 0 ? -1 : noIndex - before.noIndex);
+        }
+    }
+}
@@ -4,13 +4,25 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.Value;
 import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.handlers.BeanHandler;
+import org.apache.commons.dbutils.handlers.BeanListHandler;
+import ru.netology.web.report.StepTimer;
 
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class SQLHelper {
@@ -22,39 +34,195 @@ public class SQLHelper {
     private static String url = System.getProperty("db.url");
     private static String user = System.getProperty("db.user");
     private static String password = System.getProperty("db.password");
+    private static ConnectionPool pool = new ConnectionPool(url, user, password,
+            Integer.getInteger("db.pool.size", 4),
+            Integer.getInteger("db.pool.statements", 32),
+            Long.getLong("db.pool.timeout", 30_000L),
+            Integer.getInteger("db.pool.validation.timeout", 2));
+    private static Dialect dialect = Dialect.fromUrl(url);
+    private static int fetchSize = Integer.getInteger("db.fetch.size", 1_000);
 
 
-    @SneakyThrows
-    private static Connection getConn() {
-        return DriverManager.getConnection(url, user, password);
+    static Connection getConn() {
+        return StepTimer.time("db.connect", pool::borrow);
     }
-    @SneakyThrows
+
+    public static Dialect getDialect() {
+        return dialect;
+    }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Соединения всех клиентов к базе приложения по данным сервера (pg_stat_activity / PROCESSLIST).
+     */
+    public static ServerConnections getServerConnections() {
+        return query(dialect.getServerConnectionsSql(), rs -> rs.next()
+                ? new ServerConnections(rs.getInt(1), rs.getInt(2)) : new ServerConnections(0, 0));
+    }
+
+    static void closeIdleConnections() {
+        pool.shutdown();
+    }
+
     public static void cleanDatabase() {
-        Connection conn = getConn();
-        runner.execute(conn, "DELETE FROM payment_entity");
-        runner.execute(conn, "DELETE FROM credit_request_entity");
-        runner.execute(conn, "DELETE FROM order_entity");
+        StepTimer.time("db.clean", DatabaseReset::deleteAll);
     }
 
-    @SneakyThrows
     public static SQLHelper.PaymentEntity getPaymentEntity() {
         String codeSQL = "SELECT * FROM payment_entity ORDER BY created DESC LIMIT 1";
-        Connection conn = getConn();
-        return runner.query(conn, codeSQL, new BeanHandler<>(SQLHelper.PaymentEntity.class));
+        return query(codeSQL, new BeanHandler<>(SQLHelper.PaymentEntity.class));
     }
 
-    @SneakyThrows
     public static SQLHelper.CreditRequestEntity getCreditRequestEntity() {
         String codeSQL = "SELECT * FROM credit_request_entity ORDER BY created DESC LIMIT 1";
-        Connection conn = getConn();
-        return runner.query(conn, codeSQL, new BeanHandler<>(SQLHelper.CreditRequestEntity.class));
+        return query(codeSQL, new BeanHandler<>(SQLHelper.CreditRequestEntity.class));
     }
 
-    @SneakyThrows
     public static SQLHelper.OrderEntity getOrderEntity() {
         String codeSQL = "SELECT * FROM order_entity ORDER BY created DESC LIMIT 1";
+        return query(codeSQL, new BeanHandler<>(SQLHelper.OrderEntity.class));
+    }
+
+    public static Timestamp getLastCreated(String table) {
+        String codeSQL = "SELECT MAX(created) FROM " + table;
+        return query(codeSQL, rs -> rs.next() ? rs.getTimestamp(1) : null);
+    }
+
+    public static SQLHelper.PaymentEntity getPaymentEntityByTransactionId(String transactionId) {
+        return queryFirstBy("payment_entity", "transaction_id", transactionId, SQLHelper.PaymentEntity.class);
+    }
+
+    public static SQLHelper.CreditRequestEntity getCreditRequestEntityByBankId(String bankId) {
+        return queryFirstBy("credit_request_entity", "bank_id", bankId, SQLHelper.CreditRequestEntity.class);
+    }
+
+    public static SQLHelper.OrderEntity getOrderEntityByPaymentId(String paymentId) {
+        return queryFirstBy("order_entity", "payment_id", paymentId, SQLHelper.OrderEntity.class);
+    }
+
+    public static SQLHelper.OrderEntity getOrderEntityByCreditId(String creditId) {
+        return queryFirstBy("order_entity", "credit_id", creditId, SQLHelper.OrderEntity.class);
+    }
+
+    public static long countCreatedAfter(String table, Timestamp mark) {
+        if (mark == null) {
+            return query("SELECT COUNT(*) FROM " + table, rs -> rs.next() ? rs.getLong(1) : 0L);
+        }
+        return query("SELECT COUNT(*) FROM " + table + " WHERE created > ?", rs -> rs.next() ? rs.getLong(1) : 0L, mark);
+    }
+
+    public static void deleteBy(String table, String column, String value) {
+        execute("DELETE FROM " + table + " WHERE " + column + " = ?", value);
+    }
+
+    public static <T> List<T> getCreatedSince(String table, Timestamp mark, Class<T> type) {
+        if (mark == null) {
+            return query("SELECT * FROM " + table + " ORDER BY created", new BeanListHandler<>(type));
+        }
+        String codeSQL = "SELECT * FROM " + table + " WHERE created >= ? ORDER BY created";
+        return query(codeSQL, new BeanListHandler<>(type), mark);
+    }
+
+    public static Stream<SQLHelper.PaymentEntity> streamPaymentEntities(Timestamp since) {
+        return stream("payment_entity", since, rs -> new SQLHelper.PaymentEntity(rs.getString("id"),
+                rs.getInt("amount"), rs.getTimestamp("created"), rs.getString("status"),
+                rs.getString("transaction_id")));
+    }
+
+    public static Stream<SQLHelper.CreditRequestEntity> streamCreditRequestEntities(Timestamp since) {
+        return stream("credit_request_entity", since, rs -> new SQLHelper.CreditRequestEntity(rs.getString("id"),
+                rs.getString("bank_id"), rs.getTimestamp("created"), rs.getString("status")));
+    }
+
+    public static Stream<SQLHelper.OrderEntity> streamOrderEntities(Timestamp since) {
+        return stream("order_entity", since, rs -> new SQLHelper.OrderEntity(rs.getString("id"),
+                rs.getTimestamp("created"), rs.getString("credit_id"), rs.getString("payment_id")));
+    }
+
+    /**
+     * Построчное чтение таблицы курсором (db.fetch.size строк за обращение к серверу) на отдельном
+     * соединении пула, поэтому память не зависит от размера таблицы. Поток нужно закрыть,
+     * например в try-with-resources, — только тогда соединение вернется в пул.
+     */
+    @SneakyThrows
+    private static <T> Stream<T> stream(String table, Timestamp since, ResultSetHandler<T> row) {
+        String codeSQL = "SELECT * FROM " + table + (since == null ? "" : " WHERE created > ?");
         Connection conn = getConn();
-        return runner.query(conn, codeSQL, new BeanHandler<>(SQLHelper.OrderEntity.class));
+        PreparedStatement statement = null;
+        try {
+            conn.setAutoCommit(false);
+            statement = conn.prepareStatement(codeSQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(dialect.getCursorFetchSize(fetchSize));
+            if (since != null) {
+                statement.setTimestamp(1, since);
+            }
+            ResultSet rs = statement.executeQuery();
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                @SneakyThrows
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(row.handle(rs));
+                    return true;
+                }
+            };
+            PreparedStatement opened = statement;
+            return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs, opened, conn));
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(statement, conn);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception ignored) {
+                // курсор дочитан или соединение уже потеряно
+            }
+        }
+    }
+
+    private static <T> T queryFirstBy(String table, String column, String value, Class<T> type) {
+        String codeSQL = "SELECT * FROM " + table + " WHERE " + column + " = ? ORDER BY created LIMIT 1";
+        return query(codeSQL, new BeanHandler<>(type), value);
+    }
+
+    @SneakyThrows
+    private static <T> T query(String codeSQL, ResultSetHandler<T> handler, Object... params) {
+        QueryProfiler.explain(codeSQL, true, params);
+        long start = System.nanoTime();
+        try (Connection conn = getConn()) {
+            return StepTimer.time("db.query", () -> runner.query(conn, codeSQL, handler, params));
+        } finally {
+            QueryProfiler.record(codeSQL, System.nanoTime() - start);
+        }
+    }
+
+    @SneakyThrows
+    private static void execute(String codeSQL, Object... params) {
+        QueryProfiler.explain(codeSQL, false, params);
+        long start = System.nanoTime();
+        try (Connection conn = getConn()) {
+            StepTimer.time("db.execute", () -> runner.execute(conn, codeSQL, params));
+        } finally {
+            QueryProfiler.record(codeSQL, System.nanoTime() - start);
+        }
+    }
+
+    @Value
+    public static class ServerConnections {
+        int total;
+        int idle;
     }
 
     @Data
@@ -0,0 +1,30 @@
+package ru.netology.web.gate;
+
+import lombok.Value;
+
+import java.util.Properties;
+
+/**
+ * Поведение шлюза для одной карты. Читается из properties-файла:
+ * card.default.latency=exp:100, card.4444444444444441.errorRate=0.1, card.4444444444444442.timeoutRate=0.05.
+ */
+@Value
+public class GateProfile {
+    public static final GateProfile IMMEDIATE = new GateProfile(Latency.parse("fixed:0"), 0, 0, 0);
+
+    Latency latency;
+    double errorRate;
+    double timeoutRate;
+    long timeoutMillis;
+
+    public static GateProfile from(Properties properties, String key, GateProfile fallback) {
+        String prefix = "card." + key + ".";
+        return new GateProfile(
+                properties.containsKey(prefix + "latency")
+                        ? Latency.parse(properties.getProperty(prefix + "latency")) : fallback.latency,
+                Double.parseDouble(properties.getProperty(prefix + "errorRate", String.valueOf(fallback.errorRate))),
+                Double.parseDouble(properties.getProperty(prefix + "timeoutRate", String.valueOf(fallback.timeoutRate))),
+                Long.parseLong(properties.getProperty(prefix + "timeout",
+                        String.valueOf(fallback.timeoutMillis == 0 ? 60_000 : fallback.timeoutMillis))));
+    }
+}
@@ -0,0 +1,230 @@
+package ru.netology.web.gate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Встраиваемая замена gate-simulator/app.js: обслуживает /payment и /credit,
+ * ищет карту по индексу и отвечает с задержками и ошибками из профиля карты.
+ * Как и app.js, на каждый запрос выдает новый случайный id и ведет журнал последних gate.journal.size
+ * запросов (GET /requests?after=N): по нему тест узнает, какой id получила его покупка.
+ */
+public class GateSimulator implements AutoCloseable {
+
+    private static final Json json = new Json();
+    private static final String[] CARD_FIELDS = {"number", "month", "year", "holder", "cvc"};
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, String> statuses;
+    private final Map<String, GateProfile> profiles = new HashMap<>();
+    private final GateProfile defaultProfile;
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final int journalSize = Integer.getInteger("gate.journal.size", 10_000);
+    private final Deque<Map<String, Object>> journal = new ArrayDeque<>();
+    private long lastSeq;
+
+    private GateSimulator(int port, Map<String, String> statuses, Properties profile) throws IOException {
+        this.statuses = statuses;
+        this.defaultProfile = GateProfile.from(profile, "default", GateProfile.IMMEDIATE);
+        statuses.keySet().forEach(number -> {
+            String key = number.replace(" ", "");
+            profiles.put(number, GateProfile.from(profile, key, defaultProfile));
+        });
+        this.executor = newExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/payment", this::handle);
+        server.createContext("/credit", this::handle);
+        server.createContext("/requests", this::handleJournal);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static GateSimulator start(int port, Path data, Properties profile) throws IOException {
+        return new GateSimulator(port, loadCards(data), profile);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties profile = new Properties();
+        String profilePath = System.getProperty("gate.profile");
+        if (profilePath != null && !profilePath.isEmpty()) {
+            try (InputStream in = new FileInputStream(profilePath)) {
+                profile.load(in);
+            }
+        }
+        GateSimulator gate = start(Integer.getInteger("gate.port", 9999),
+                Paths.get(System.getProperty("gate.data", "gate-simulator/data.json")), profile);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            gate.close();
+            System.out.println(gate.getStats());
+        }));
+        System.out.println("Gate simulator started on port " + gate.getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getStats() {
+        return "approved=" + approved.sum() + ", declined=" + declined.sum() + ", unknown=" + unknown.sum()
+                + ", errors=" + errors.sum() + ", timeouts=" + timeouts.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            Map<String, Object> request = json.toType(body, Json.MAP_TYPE);
+            String number = String.valueOf(request.get("number"));
+            String status = statuses.get(number);
+            if (status == null) {
+                unknown.increment();
+                record(exchange, request, null, 400);
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            GateProfile profile = profiles.getOrDefault(number, defaultProfile);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < profile.getTimeoutRate()) {
+                timeouts.increment();
+                record(exchange, request, null, 0);
+                TimeUnit.MILLISECONDS.sleep(profile.getTimeoutMillis());
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(profile.getLatency().sampleMillis(random));
+            if (random.nextDouble() < profile.getErrorRate()) {
+                errors.increment();
+                record(exchange, request, null, 500);
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            (status.equals("APPROVED") ? approved : declined).increment();
+            String id = UUID.randomUUID().toString();
+            record(exchange, request, id, 200);
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.put("status", status);
+            send(exchange, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * GET /requests?after=N — запросы журнала с номером больше N и номер последнего; без after — только номер.
+     */
+    private void handleJournal(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            Long after = null;
+            if (query != null && query.startsWith("after=")) {
+                after = Long.parseLong(query.substring("after=".length()));
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            List<Map<String, Object>> requests = new ArrayList<>();
+            synchronized (journal) {
+                response.put("last", lastSeq);
+                if (after != null) {
+                    for (Map<String, Object> entry : journal) {
+                        if ((Long) entry.get("seq") > after) {
+                            requests.add(entry);
+                        }
+                    }
+                }
+            }
+            response.put("requests", requests);
+            send(exchange, response);
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(400, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void record(HttpExchange exchange, Map<String, Object> request, String id, int code) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", exchange.getRequestURI().getPath());
+        entry.put("id", id);
+        entry.put("code", code);
+        for (String field : CARD_FIELDS) {
+            if (request.get(field) != null) {
+                entry.put(field, String.valueOf(request.get(field)));
+            }
+        }
+        synchronized (journal) {
+            entry.put("seq", ++lastSeq);
+            journal.addLast(entry);
+            if (journal.size() > journalSize) {
+                journal.removeFirst();
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, Map<String, Object> response) throws IOException {
+        byte[] bytes = json.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> loadCards(Path data) throws IOException {
+        Map<String, String> cards = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(data, StandardCharsets.UTF_8)) {
+            List<Map<String, Object>> items = json.toType(reader, Json.LIST_OF_MAPS_TYPE);
+            items.forEach(item -> cards.put((String) item.get("number"), (String) item.get("status")));
+        }
+        return cards;
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.netology.web.gate;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Распределение задержки ответа шлюза: fixed:50, uniform:100-400, exp:200 (экспоненциальное со средним 200 мс).
+ */
+public interface Latency {
+
+    long sampleMillis(ThreadLocalRandom random);
+
+    static Latency parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":", 2);
+        String value = parts.length > 1 ? parts[1] : "0";
+        switch (parts[0]) {
+            case "fixed":
+                long fixed = Long.parseLong(value);
+                return random -> fixed;
+            case "uniform":
+                String[] bounds = value.split("-");
+                long min = Long.parseLong(bounds[0]);
+                long max = Long.parseLong(bounds[1]);
+                return random -> min + random.nextLong(max - min + 1);
+            case "exp":
+                double mean = Double.parseDouble(value);
+                return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+            default:
+                throw new IllegalArgumentException("Неизвестное распределение задержки: " + spec);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ru.netology.web.page;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.WebDriverRunner;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import ru.netology.web.data.Await;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Пул заранее запущенных Chrome. С -Dbrowser.pool.size=N при старте прогона параллельно поднимается
+ * N браузеров, каждый открывает app.url и ждет готовности страницы — пока идут DatabaseReset.prepare()
+ * и прочая подготовка классов. Поток JUnit берет браузер при первом BrowserSession.open() и держит его
+ * browser.pool.recycle тестов, после чего браузер закрывается, а взамен в фоне запускается новый.
+ * Память браузера (RSS главного процесса Chrome и всех его потомков) читается из /proc по --user-data-dir.
+ * Браузер настраивается как у Selenide (selenide.headless, selenide.browserBinary, selenide.pageLoadStrategy,
+ * Configuration.browserCapabilities); пул умеет только локальный Chrome, поэтому с другим selenide.browser
+ * или с selenide.remote он не запускается, а сразу сообщает об ошибке.
+ */
+public class BrowserPool {
+    private static final int SIZE = Integer.getInteger("browser.pool.size", 0);
+    private static final int RECYCLE = Integer.getInteger("browser.pool.recycle", 20);
+    private static final Duration READY_TIMEOUT =
+            Duration.ofMillis(Long.getLong("browser.pool.timeout", 60_000L));
+    private static final String READY_SCRIPT = "return document.readyState === 'complete';";
+
+    private static final LinkedBlockingQueue<Browser> idle = new LinkedBlockingQueue<>();
+    private static final ConcurrentLinkedQueue<Browser> all = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Browser> leased = new ThreadLocal<>();
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static final AtomicInteger pending = new AtomicInteger();
+    private static ExecutorService launcher;
+    private static long startedAt;
+
+    private BrowserPool() {
+    }
+
+    /**
+     * Пул выключен в режиме NetworkCapture: браузеры с прокси запускает сам Selenide.
+     */
+    public static boolean isEnabled() {
+        return SIZE > 0 && !NetworkCapture.isEnabled();
+    }
+
+    /**
+     * Запускает SIZE браузеров параллельно и сразу возвращает управление.
+     */
+    public static synchronized void start() {
+        if (launcher != null) {
+            return;
+        }
+        requireLocalChrome();
+        startedAt = System.nanoTime();
+        launcher = Executors.newFixedThreadPool(SIZE, runnable -> {
+            Thread thread = new Thread(runnable, "browser-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < SIZE; i++) {
+            launchAsync();
+        }
+    }
+
+    /**
+     * Привязывает к текущему потоку браузер из пула; отработавший RECYCLE тестов браузер заменяется.
+     */
+    public static void bind() {
+        Browser browser = leased.get();
+        if (browser != null && browser.tests < RECYCLE) {
+            browser.tests++;
+            return;
+        }
+        if (browser != null) {
+            retire(browser);
+            launchAsync();
+        }
+        browser = take();
+        browser.tests = 1;
+        leased.set(browser);
+        WebDriverRunner.setWebDriver(browser.driver);
+    }
+
+    /**
+     * Закрывает все браузеры пула и пишет отчет о запуске и памяти.
+     */
+    public static synchronized Path shutdown() throws IOException {
+        if (launcher == null) {
+            return null;
+        }
+        launcher.shutdown();
+        try {
+            launcher.awaitTermination(READY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        launcher = null;
+        for (Browser browser : all) {
+            if (!browser.retired) {
+                retire(browser);
+            }
+        }
+        return writeReport();
+    }
+
+    private static Browser take() {
+        Browser browser = idle.poll();
+        if (browser != null) {
+            return browser;
+        }
+        if (pending.get() == 0) {
+            return launch();
+        }
+        try {
+            browser = idle.poll(READY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание браузера из пула прервано", e);
+        }
+        return browser != null ? browser : launch();
+    }
+
+    private static void launchAsync() {
+        ExecutorService executor = launcher;
+        if (executor != null && !executor.isShutdown()) {
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    idle.add(launch());
+                } catch (RuntimeException | AssertionError e) {
+                    System.err.println("Браузер пула не запустился: " + e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static void requireLocalChrome() {
+        if (!"chrome".equalsIgnoreCase(Configuration.browser) || Configuration.remote != null) {
+            throw new IllegalStateException("Пул браузеров запускает только локальный Chrome, а Selenide настроен на "
+                    + Configuration.browser + (Configuration.remote == null ? "" : " через " + Configuration.remote)
+                    + ". Уберите -Dbrowser.pool.size или -Dselenide.browser/-Dselenide.remote");
+        }
+    }
+
+    private static ChromeOptions options(Path profile) {
+        ChromeOptions options = new ChromeOptions().merge(Configuration.browserCapabilities);
+        options.setPageLoadStrategy(PageLoadStrategy.fromString(Configuration.pageLoadStrategy));
+        if (Configuration.browserBinary != null && !Configuration.browserBinary.isEmpty()) {
+            options.setBinary(Configuration.browserBinary);
+        }
+        if (Configuration.headless) {
+            options.addArguments("--headless=new");
+        }
+        options.addArguments("--user-data-dir=" + profile,
+                "--window-size=" + Configuration.browserSize.replace('x', ','));
+        return options;
+    }
+
+    private static Browser launch() {
+        requireLocalChrome();
+        long start = System.nanoTime();
+        Path profile;
+        try {
+            profile = Files.createTempDirectory("browser-pool-");
+        } catch (IOException e) {
+            throw new IllegalStateException("Не создать каталог профиля браузера", e);
+        }
+        WebDriver driver = new ChromeDriver(options(profile));
+        long launched = System.nanoTime();
+        String url = System.getProperty("app.url");
+        if (url != null) {
+            driver.get(url);
+        }
+        Await.until("готовность браузера " + profile,
+                () -> Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(READY_SCRIPT)) ? true : null,
+                READY_TIMEOUT);
+        Browser browser = new Browser(ids.incrementAndGet(), driver, profile,
+                (launched - start) / 1_000_000, (System.nanoTime() - launched) / 1_000_000);
+        all.add(browser);
+        return browser;
+    }
+
+    private static void retire(Browser browser) {
+        browser.retired = true;
+        browser.rssKb = rssKb(browser.profile);
+        try {
+            browser.driver.quit();
+        } catch (RuntimeException e) {
+            System.err.println("Браузер пула " + browser.id + " не закрылся: " + e);
+        }
+        try (Stream<Path> files = Files.walk(browser.profile)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // временный профиль останется в tmp
+        }
+    }
+
+    /**
+     * Сумма VmRSS процесса Chrome с данным --user-data-dir и всех его потомков; -1, если /proc недоступен.
+     */
+    static long rssKb(Path profile) {
+        Path proc = Paths.get("/proc");
+        if (!Files.isDirectory(proc)) {
+            return -1;
+        }
+        String marker = "--user-data-dir=" + profile;
+        Map<Integer, List<Integer>> children = new HashMap<>();
+        Set<Integer> roots = new HashSet<>();
+        try (Stream<Path> entries = Files.list(proc)) {
+            entries.map(path -> path.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .forEach(name -> {
+                        int pid = Integer.parseInt(name);
+                        try {
+                            String stat = Files.readString(proc.resolve(name).resolve("stat"));
+                            int parent = Integer.parseInt(stat.substring(stat.lastIndexOf(')') + 2).split(" ")[1]);
+                            children.computeIfAbsent(parent, key -> new ArrayList<>()).add(pid);
+                            String cmdline = new String(Files.readAllBytes(proc.resolve(name).resolve("cmdline")),
+                                    StandardCharsets.UTF_8);
+                            if (Stream.of(cmdline.split("\0")).anyMatch(marker::equals)) {
+                                roots.add(pid);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            // процесс завершился во время обхода
+                        }
+                    });
+        } catch (IOException e) {
+            return -1;
+        }
+        Set<Integer> tree = new HashSet<>();
+        List<Integer> queue = new ArrayList<>(roots);
+        while (!queue.isEmpty()) {
+            int pid = queue.remove(queue.size() - 1);
+            if (tree.add(pid)) {
+                queue.addAll(children.getOrDefault(pid, Collections.emptyList()));
+            }
+        }
+        long total = 0;
+        for (int pid : tree) {
+            try {
+                for (String line : Files.readAllLines(proc.resolve(String.valueOf(pid)).resolve("status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        total += Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // процесс завершился во время обхода
+            }
+        }
+        return total;
+    }
+
+    private static Path writeReport() throws IOException {
+        List<Browser> browsers = new ArrayList<>(all);
+        browsers.sort(Comparator.comparingInt(browser -> browser.id));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "size=%d recycle=%d browsers=%d uptime=%.1f s%n",
+                SIZE, RECYCLE, browsers.size(), (System.nanoTime() - startedAt) / 1e9));
+        report.append(String.format(Locale.ROOT, "%4s %10s %10s %6s %10s%n", "id", "launch ms", "ready ms",
+                "tests", "rss MB"));
+        for (Browser browser : browsers) {
+            report.append(String.format(Locale.ROOT, "%4d %10d %10d %6d %10s%n", browser.id, browser.launchMillis,
+                    browser.readyMillis, browser.tests,
+                    browser.rssKb < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", browser.rssKb / 1024.0)));
+        }
+        if (!browsers.isEmpty()) {
+            long[] launch = browsers.stream().mapToLong(browser -> browser.launchMillis + browser.readyMillis)
+                    .sorted().toArray();
+            report.append(String.format(Locale.ROOT, "launch+ready ms: min=%d median=%d max=%d%n",
+                    launch[0], launch[launch.length / 2], launch[launch.length - 1]));
+        }
+        Path out = Paths.get(System.getProperty("browser.pool.report", "build/reports/browser-pool"))
+                .resolve("browser-pool-" + ProcessHandle.current().pid() + ".txt");
+        Files.createDirectories(out.getParent());
+        Files.write(out, report.toString().getBytes(StandardCharsets.UTF_8));
+        return out;
+    }
+
+    private static class Browser {
+        private final int id;
+        private final WebDriver driver;
+        private final Path profile;
+        private final long launchMillis;
+        private final long readyMillis;
+        private volatile int tests;
+        private volatile long rssKb;
+        private volatile boolean retired;
+
+        private Browser(int id, WebDriver driver, Path profile, long launchMillis, long readyMillis) {
+            this.id = id;
+            this.driver = driver;
+            this.profile = profile;
+            this.launchMillis = launchMillis;
+            this.readyMillis = readyMillis;
+        }
+    }
+}
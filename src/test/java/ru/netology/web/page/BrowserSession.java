@@ -0,0 +1,67 @@
+package ru.netology.web.page;
+
+import com.codeborne.selenide.CollectionCondition;
+import com.codeborne.selenide.Condition;
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
+
+import ru.netology.web.report.StepTimer;
+
+import java.time.Duration;
+
+import static com.codeborne.selenide.Selenide.$$;
+
+/**
+ * Подготовка страницы покупки перед тестом. С -Dbrowser.reuse=true уже открытая в потоке страница
+ * не перезагружается: закрываются уведомления и очищаются поля формы. Если после этого
+ * форма осталась «грязной» (ошибки валидации, непустые поля, висящие уведомления), страница открывается заново.
+ * С -Dbrowser.pool.size=N браузер потока берется из BrowserPool, с -Dnetwork.mode — запускается через прокси NetworkCapture.
+ */
+public class BrowserSession {
+    private static final boolean reuse = Boolean.getBoolean("browser.reuse");
+    private static final String RESET_FORM_SCRIPT =
+            "var setter = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;"
+                    + "document.querySelectorAll('.notification__closer').forEach(function (b) { b.click(); });"
+                    + "var inputs = document.querySelectorAll('form input');"
+                    + "inputs.forEach(function (i) {"
+                    + "  if (i.value !== '') {"
+                    + "    setter.call(i, '');"
+                    + "    i.dispatchEvent(new Event('input', {bubbles: true}));"
+                    + "    i.dispatchEvent(new Event('change', {bubbles: true}));"
+                    + "  }"
+                    + "});"
+                    + "return document.querySelectorAll('.input_invalid').length === 0"
+                    + "  && Array.prototype.every.call(inputs, function (i) { return i.value === ''; });";
+
+    private BrowserSession() {
+    }
+
+    public static boolean open(String url) {
+        if (BrowserPool.isEnabled()) {
+            BrowserPool.bind();
+        }
+        if (NetworkCapture.isEnabled()) {
+            NetworkCapture.install();
+        }
+        if (reuse && WebDriverRunner.hasWebDriverStarted() && WebDriverRunner.url().startsWith(url)
+                && StepTimer.time("browser.reset", BrowserSession::resetInPlace)) {
+            return true;
+        }
+        StepTimer.time("browser.open", () -> Selenide.open(url));
+        return false;
+    }
+
+    private static boolean resetInPlace() {
+        try {
+            Boolean clean = Selenide.executeJavaScript(RESET_FORM_SCRIPT);
+            if (!Boolean.TRUE.equals(clean)) {
+                return false;
+            }
+            $$(".notification_status_ok, .notification_status_error").filter(Condition.visible)
+                    .shouldHave(CollectionCondition.size(0), Duration.ofMillis(1500));
+            return true;
+        } catch (RuntimeException | AssertionError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package ru.netology.web.page;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.filters.RequestFilter;
+import com.browserup.bup.proxy.CaptureType;
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarEntry;
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.WebDriverRunner;
+import com.codeborne.selenide.proxy.SelenideProxyServer;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.qameta.allure.Allure;
+import ru.netology.web.report.StepTimer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Режим сети через прокси Selenide (BrowserUp), -Dnetwork.mode=block,har:
+ * block — запросы ресурсов типов network.block.types (по умолчанию image, font, media; stylesheet — по
+ * желанию, без стилей уведомления видимы сразу) и к хостам network.block.hosts получают пустой ответ 204;
+ * har — от нажатия «Продолжить» до уведомления пишется HAR, из которого запрос покупки
+ * (/api/v1/pay или /api/v1/credit) раскладывается на время сервера и время фронтенда.
+ */
+public class NetworkCapture {
+    private static final Set<String> MODE = split(System.getProperty("network.mode", "off"));
+    private static final Set<String> BLOCK_TYPES =
+            split(System.getProperty("network.block.types", "image,font,media"));
+    private static final Set<String> BLOCK_HOSTS = split(System.getProperty("network.block.hosts", ""));
+    private static final Pattern PURCHASE = Pattern.compile(".*/api/v1/(pay|credit)(\\?.*)?");
+    private static final String FILTER = "networkBlock";
+
+    private static final Map<String, List<String>> EXTENSIONS = Map.of(
+            "image", List.of("png", "jpg", "jpeg", "gif", "svg", "webp", "ico", "bmp", "avif"),
+            "font", List.of("woff", "woff2", "ttf", "otf", "eot"),
+            "stylesheet", List.of("css"),
+            "media", List.of("mp4", "webm", "ogg", "mp3", "wav"));
+    private static final Map<String, String> ACCEPT = Map.of(
+            "image", "image/",
+            "stylesheet", "text/css",
+            "media", "video/");
+
+    private NetworkCapture() {
+    }
+
+    public static boolean isEnabled() {
+        return isBlocking() || isRecordingHar();
+    }
+
+    public static boolean isBlocking() {
+        return MODE.contains("block");
+    }
+
+    public static boolean isRecordingHar() {
+        return MODE.contains("har");
+    }
+
+    /**
+     * Запускает браузер потока с прокси и ставит фильтр блокировки до первой загрузки страницы.
+     */
+    public static void install() {
+        Configuration.proxyEnabled = true;
+        WebDriverRunner.getWebDriver();
+        SelenideProxyServer server = WebDriverRunner.getSelenideProxy();
+        if (isBlocking() && server.requestFilter(FILTER) == null) {
+            server.addRequestFilter(FILTER, blockFilter());
+        }
+    }
+
+    /**
+     * Начинает новый HAR прямо перед отправкой формы покупки.
+     */
+    public static void startPurchase() {
+        if (!isRecordingHar()) {
+            return;
+        }
+        BrowserUpProxy proxy = WebDriverRunner.getSelenideProxy().getProxy();
+        proxy.enableHarCaptureTypes(CaptureType.REQUEST_HEADERS, CaptureType.RESPONSE_HEADERS);
+        proxy.newHar("purchase");
+    }
+
+    /**
+     * Раскладывает время до уведомления на запрос покупки (ожидание ответа сервера и передачу)
+     * и остаток на стороне браузера; шаги попадают в таймлайн, HAR — во вложение Allure.
+     */
+    public static void finishPurchase(long notificationMillis) {
+        if (!isRecordingHar()) {
+            return;
+        }
+        Har har = WebDriverRunner.getSelenideProxy().getProxy().endHar();
+        Optional<HarEntry> purchase = har.getLog().getEntries().stream()
+                .filter(entry -> PURCHASE.matcher(entry.getRequest().getUrl()).matches())
+                .max(Comparator.comparing(HarEntry::getStartedDateTime));
+        if (purchase.isPresent()) {
+            HarEntry entry = purchase.get();
+            long now = System.currentTimeMillis();
+            long total = entry.getTime();
+            long server = entry.getTimings().getWait();
+            long frontend = Math.max(0, notificationMillis - total);
+            StepTimer.record("net.purchase", now, total * 1_000_000);
+            StepTimer.record("net.purchase.server", now, server * 1_000_000);
+            StepTimer.record("page.purchase.frontend", now, frontend * 1_000_000);
+            Allure.addAttachment("Purchase timing", String.format(Locale.ROOT,
+                    "%s %s -> %d%nnotification %d ms = request %d ms (server wait %d, send %d, receive %d)"
+                            + " + frontend %d ms",
+                    entry.getRequest().getMethod(), entry.getRequest().getUrl(), entry.getResponse().getStatus(),
+                    notificationMillis, total, server, entry.getTimings().getSend(),
+                    entry.getTimings().getReceive(), frontend));
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try {
+            har.writeTo(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Allure.addAttachment("Purchase HAR", "application/json", new ByteArrayInputStream(json.toByteArray()), "har");
+    }
+
+    private static RequestFilter blockFilter() {
+        return (request, contents, messageInfo) -> {
+            if (!isBlocked(messageInfo.getOriginalUrl(), request.headers().get(HttpHeaderNames.ACCEPT))) {
+                return null;
+            }
+            DefaultFullHttpResponse response =
+                    new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+            return response;
+        };
+    }
+
+    static boolean isBlocked(String url, String accept) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String host = uri.getHost();
+        if (host != null && BLOCK_HOSTS.stream().anyMatch(blockedHost ->
+                host.equalsIgnoreCase(blockedHost) || host.toLowerCase(Locale.ROOT).endsWith("." + blockedHost))) {
+            return true;
+        }
+        if (PURCHASE.matcher(url).matches()) {
+            return false;
+        }
+        String path = uri.getPath() == null ? "" : uri.getPath().toLowerCase(Locale.ROOT);
+        String extension = path.substring(path.lastIndexOf('.') + 1);
+        for (String type : BLOCK_TYPES) {
+            if (path.contains(".") && EXTENSIONS.getOrDefault(type, List.of()).contains(extension)) {
+                return true;
+            }
+            String acceptPrefix = ACCEPT.get(type);
+            if (accept != null && acceptPrefix != null && accept.startsWith(acceptPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> split(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .map(item -> item.toLowerCase(Locale.ROOT))
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.netology.web.page;
+
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
+import lombok.Value;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Следит за уведомлением о результате покупки прямо в странице: MutationObserver (с подстраховкой
+ * опросом раз в 50 мс на случай CSS-переходов) фиксирует первое показанное уведомление
+ * и время от нажатия «Продолжить». Ожидание — один асинхронный скрипт, который завершается сразу после события.
+ */
+public class NotificationWatcher {
+
+    public enum Outcome {
+        OK, ERROR, TIMEOUT
+    }
+
+    @Value
+    public static class Result {
+        Outcome outcome;
+        long elapsedMillis;
+    }
+
+    private static final String INSTALL_SCRIPT =
+            "var w = window.__purchaseWatch = {start: performance.now(), outcome: null, elapsed: null, callbacks: []};"
+                    + "function shown(e) {"
+                    + "  if (!e) { return false; }"
+                    + "  var style = getComputedStyle(e), rect = e.getBoundingClientRect();"
+                    + "  return rect.width > 0 && rect.height > 0 && style.visibility !== 'hidden' && style.opacity !== '0';"
+                    + "}"
+                    + "function check() {"
+                    + "  if (w.outcome) { return; }"
+                    + "  var outcome = shown(document.querySelector('.notification_status_ok')) ? 'OK'"
+                    + "    : shown(document.querySelector('.notification_status_error')) ? 'ERROR' : null;"
+                    + "  if (!outcome) { return; }"
+                    + "  w.outcome = outcome;"
+                    + "  w.elapsed = performance.now() - w.start;"
+                    + "  w.observer.disconnect();"
+                    + "  clearInterval(w.timer);"
+                    + "  w.callbacks.forEach(function (c) { c(); });"
+                    + "}"
+                    + "w.observer = new MutationObserver(check);"
+                    + "w.observer.observe(document.body, {subtree: true, childList: true, attributes: true,"
+                    + "  attributeFilter: ['class', 'style']});"
+                    + "w.timer = setInterval(check, 50);";
+
+    private static final String AWAIT_SCRIPT =
+            "var done = arguments[arguments.length - 1], timeout = arguments[0], w = window.__purchaseWatch;"
+                    + "if (!w) { done(null); return; }"
+                    + "if (w.outcome) { done([w.outcome, w.elapsed]); return; }"
+                    + "var t = setTimeout(function () { done(['TIMEOUT', performance.now() - w.start]); }, timeout);"
+                    + "w.callbacks.push(function () { clearTimeout(t); done([w.outcome, w.elapsed]); });";
+
+    private NotificationWatcher() {
+    }
+
+    public static void install() {
+        Selenide.executeJavaScript(INSTALL_SCRIPT);
+    }
+
+    /**
+     * @return результат или null, если наблюдатель не установлен (например, страница перезагрузилась)
+     */
+    public static Result await(Duration timeout) {
+        WebDriver.Timeouts timeouts = WebDriverRunner.getWebDriver().manage().timeouts();
+        Duration previous = timeouts.getScriptTimeout();
+        List<Object> result;
+        try {
+            timeouts.scriptTimeout(timeout.plusSeconds(5));
+            result = Selenide.executeAsyncJavaScript(AWAIT_SCRIPT, timeout.toMillis());
+        } finally {
+            timeouts.scriptTimeout(previous);
+        }
+        if (result == null) {
+            return null;
+        }
+        return new Result(Outcome.valueOf((String) result.get(0)), ((Number) result.get(1)).longValue());
+    }
+}
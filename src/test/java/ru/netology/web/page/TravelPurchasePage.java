@@ -2,10 +2,14 @@ package ru.netology.web.page;
 
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.ElementsCollection;
+import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.SelenideElement;
+import io.qameta.allure.Allure;
 import ru.netology.web.data.DataHelper;
+import ru.netology.web.report.StepTimer;
 
 import java.time.Duration;
+import java.util.List;
 
 import static com.codeborne.selenide.Condition.visible;
 import static com.codeborne.selenide.Selenide.$;
@@ -13,6 +17,28 @@ import static com.codeborne.selenide.Selenide.$$;
 
 public class TravelPurchasePage {
 
+    private static final Duration NOTIFICATION_TIMEOUT = Duration.ofSeconds(18);
+
+    private static final String FILL_FORM_SCRIPT =
+            "var setter = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;"
+                    + "var owner = Array.prototype.find.call(document.querySelectorAll('.input_has-label'),"
+                    + "  function (f) { return f.textContent.indexOf('Владелец') >= 0; });"
+                    + "var inputs = ["
+                    + "  document.querySelector('input[placeholder=\"0000 0000 0000 0000\"]'),"
+                    + "  document.querySelector('input[placeholder=\"08\"]'),"
+                    + "  document.querySelector('input[placeholder=\"22\"]'),"
+                    + "  owner && owner.querySelector('.input__control'),"
+                    + "  document.querySelector('input[placeholder=\"999\"]')];"
+                    + "var values = arguments;"
+                    + "return inputs.map(function (input, index) {"
+                    + "  if (!input) { return null; }"
+                    + "  input.focus();"
+                    + "  setter.call(input, values[index]);"
+                    + "  input.dispatchEvent(new Event('input', {bubbles: true}));"
+                    + "  input.dispatchEvent(new Event('change', {bubbles: true}));"
+                    + "  return input.value;"
+                    + "});";
+
     private SelenideElement heading = $$("h2").findBy(Condition.text("Путешествие дня"));
     private SelenideElement buyButton = $$("button").findBy(Condition.text("Купить"));
     private SelenideElement buyInCreditButton = $$("button").findBy(Condition.text("Купить в кредит"));
@@ -36,20 +62,25 @@ public class TravelPurchasePage {
 
 
     public TravelPurchasePage() {
-        heading.shouldBe(visible);
-        buyButton.shouldBe(visible);
-        buyInCreditButton.shouldBe(visible);
+        StepTimer.time("page.load", () -> {
+            heading.shouldBe(visible);
+            buyButton.shouldBe(visible);
+            buyInCreditButton.shouldBe(visible);
+        });
     }
 
     public void buy() {
-        buyButton.click();
-        buy.shouldBe(visible);
-
+        StepTimer.time("page.buy", () -> {
+            buyButton.click();
+            buy.shouldBe(visible);
+        });
     }
 
     public void buyInCredit() {
-        buyInCreditButton.click();
-        buyInCredit.shouldBe(visible);
+        StepTimer.time("page.buyInCredit", () -> {
+            buyInCreditButton.click();
+            buyInCredit.shouldBe(visible);
+        });
     }
 
     public int getPriceInKops() {
@@ -59,35 +90,67 @@ public class TravelPurchasePage {
     }
 
     public void inputNumberCard(String status) {
-        numberCard.setValue(DataHelper.getCardNumberByStatus(status));
+        StepTimer.time("page.input", () -> numberCard.setValue(DataHelper.getCardNumberByStatus(status)));
     }
 
     public void inputMonth(String value) {
-        month.setValue(value);
+        StepTimer.time("page.input", () -> month.setValue(value));
     }
 
     public void inputYear(String value) {
-        year.setValue(value);
+        StepTimer.time("page.input", () -> year.setValue(value));
     }
 
     public void inputOwner(String value) {
-        cardOwner.setValue(value);
+        StepTimer.time("page.input", () -> cardOwner.setValue(value));
     }
 
     public void inputCVC(int amount) {
-        CVC.setValue(DataHelper.generateCVC(amount));
+        StepTimer.time("page.input", () -> CVC.setValue(DataHelper.generateCVC(amount)));
+    }
+
+    public void fillForm(DataHelper.CardInfo card) {
+        fillForm(card, true);
+    }
+
+    public void fillForm(DataHelper.CardInfo card, boolean verify) {
+        List<String> expected = List.of(card.getNumber(), card.getMonth(), card.getYear(),
+                card.getHolder(), card.getCvc());
+        List<Object> actual = StepTimer.time("page.fillForm",
+                () -> Selenide.executeJavaScript(FILL_FORM_SCRIPT, expected.toArray()));
+        if (verify && !expected.equals(actual)) {
+            throw new AssertionError("Поля формы заполнены неверно: ожидалось " + expected + ", в форме " + actual);
+        }
     }
 
     public void clickContinue() {
-        continueButton.click();
+        NotificationWatcher.install();
+        NetworkCapture.startPurchase();
+        StepTimer.time("page.clickContinue", () -> continueButton.click());
     }
 
     public void waitNotificationOk() {
-        notificationOk.shouldBe(visible, Duration.ofSeconds(18));
+        waitNotification(NotificationWatcher.Outcome.OK, notificationOk);
     }
 
     public void waitNotificationError() {
-        notificationError.shouldBe(visible, Duration.ofSeconds(18));
+        waitNotification(NotificationWatcher.Outcome.ERROR, notificationError);
+    }
+
+    private void waitNotification(NotificationWatcher.Outcome expected, SelenideElement notification) {
+        NotificationWatcher.Result result = StepTimer.time("page.notification",
+                () -> NotificationWatcher.await(NOTIFICATION_TIMEOUT));
+        if (result == null) {
+            StepTimer.time("page.notification", () -> notification.shouldBe(visible, NOTIFICATION_TIMEOUT));
+            return;
+        }
+        Allure.addAttachment("Time to notification", result.getOutcome() + ": " + result.getElapsedMillis() + " ms");
+        NetworkCapture.finishPurchase(result.getElapsedMillis());
+        if (result.getOutcome() != expected) {
+            throw new AssertionError("Ожидалось уведомление " + expected + ", получено " + result.getOutcome()
+                    + " через " + result.getElapsedMillis() + " мс");
+        }
+        notification.shouldBe(visible);
     }
 
     public void waitNotificationMessageOwner(String message) {
@@ -110,5 +173,13 @@ public class TravelPurchasePage {
         cvcField.shouldBe(Condition.text(message));
     }
 
+    public void waitNotificationMessage(String field, String message) {
+        formFields.findBy(Condition.text(field)).shouldBe(Condition.text(message));
+    }
+
+    public void shouldHaveNoFieldError(String field) {
+        formFields.findBy(Condition.text(field)).shouldNotHave(Condition.cssClass("input_invalid"));
+    }
+
 
 }
@@ -0,0 +1,36 @@
+package ru.netology.web.report;
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+import ru.netology.web.page.BrowserPool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * При -Dbrowser.pool.size=N запускает пул браузеров в начале прогона и закрывает его с отчетом в конце.
+ */
+public class BrowserPoolListener implements TestExecutionListener {
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        if (BrowserPool.isEnabled()) {
+            BrowserPool.start();
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (BrowserPool.isEnabled()) {
+            try {
+                Path report = BrowserPool.shutdown();
+                if (report != null) {
+                    System.out.println("Пул браузеров: " + report.toAbsolutePath());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
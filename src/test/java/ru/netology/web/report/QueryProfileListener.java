@@ -0,0 +1,25 @@
+package ru.netology.web.report;
+
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+import ru.netology.web.data.QueryProfiler;
+
+/**
+ * При -Ddb.profile=true снимает статистику запросов СУБД перед прогоном и пишет отчет QueryProfiler после него.
+ */
+public class QueryProfileListener implements TestExecutionListener {
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        if (QueryProfiler.isEnabled()) {
+            QueryProfiler.start();
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (QueryProfiler.isEnabled()) {
+            System.out.println("Профиль SQL: " + QueryProfiler.writeReport().toAbsolutePath());
+        }
+    }
+}
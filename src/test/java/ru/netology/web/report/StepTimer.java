@@ -0,0 +1,66 @@
+package ru.netology.web.report;
+
+import lombok.SneakyThrows;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Замер шагов текущего теста. Шаги копятся в списке потока между началом и концом теста (TimingExtension);
+ * вне теста (например, в нагрузочном прогоне) замеры не сохраняются.
+ */
+public class StepTimer {
+    private static final ThreadLocal<List<Step>> steps = new ThreadLocal<>();
+
+    private StepTimer() {
+    }
+
+    public static void time(String name, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(name, System.currentTimeMillis(), System.nanoTime() - start);
+        }
+    }
+
+    @SneakyThrows
+    public static <T> T time(String name, Callable<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.call();
+        } finally {
+            record(name, System.currentTimeMillis(), System.nanoTime() - start);
+        }
+    }
+
+    public static void record(String name, long endEpochMillis, long durationNanos) {
+        List<Step> current = steps.get();
+        if (current != null) {
+            current.add(new Step(name, endEpochMillis - durationNanos / 1_000_000, durationNanos));
+        }
+    }
+
+    static void start() {
+        steps.set(new ArrayList<>());
+    }
+
+    static List<Step> drain() {
+        List<Step> result = steps.get();
+        steps.remove();
+        return result == null ? List.of() : result;
+    }
+
+    @Value
+    public static class Step {
+        String name;
+        long startEpochMillis;
+        long durationNanos;
+
+        public double getDurationMillis() {
+            return durationNanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.netology.web.report;
+
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.netology.web.data.Dialect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Прикладывает замеры шагов к результату теста в Allure и дописывает их в файл хронологии прогона
+ * build/timeline/timeline-&lt;timeline.run&gt;.jsonl (одна JSON-строка на шаг).
+ */
+public class TimingExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final Path timeline = Paths.get(System.getProperty("timeline.dir", "build/timeline"),
+            "timeline-" + System.getProperty("timeline.run", String.valueOf(ProcessHandle.current().pid())) + ".jsonl");
+    private static final String db = Dialect.fromUrl(System.getProperty("db.url", "jdbc:postgresql:")).getName();
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        StepTimer.start();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        List<StepTimer.Step> steps = StepTimer.drain();
+        if (steps.isEmpty()) {
+            return;
+        }
+        Map<String, double[]> totals = new TreeMap<>();
+        StringBuilder json = new StringBuilder();
+        String test = context.getRequiredTestClass().getSimpleName() + "." + context.getRequiredTestMethod().getName();
+        for (StepTimer.Step step : steps) {
+            double[] total = totals.computeIfAbsent(step.getName(), name -> new double[2]);
+            total[0]++;
+            total[1] += step.getDurationMillis();
+            json.append(String.format(Locale.ROOT,
+                    "{\"test\":\"%s\",\"db\":\"%s\",\"thread\":\"%s\",\"step\":\"%s\",\"start\":%d,\"durationMs\":%.3f,\"failed\":%b}%n",
+                    test, db, Thread.currentThread().getName(), step.getName(), step.getStartEpochMillis(),
+                    step.getDurationMillis(), context.getExecutionException().isPresent()));
+        }
+        StringBuilder table = new StringBuilder();
+        totals.forEach((name, total) -> table.append(String.format(Locale.ROOT, "%-28s x%-3d %10.1f ms%n",
+                name, (int) total[0], total[1])));
+        Allure.addAttachment("Step timings", table.toString());
+        append(json.toString());
+    }
+
+    private static synchronized void append(String lines) {
+        try {
+            Files.createDirectories(timeline.getParent());
+            try (FileChannel channel = FileChannel.open(timeline, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                FileLock lock = channel.lock();
+                try {
+                    channel.write(ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8)));
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
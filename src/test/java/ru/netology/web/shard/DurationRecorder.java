@@ -0,0 +1,67 @@
+package ru.netology.web.shard;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Замеряет длительность каждого тестового метода (параметризованные — суммой вызовов) и по окончании
+ * прогона пишет их в test.durations.dir/durations-&lt;pid&gt;.properties. Задача updateTestDurations
+ * сливает эти файлы в историю, по которой ShardPlan раскладывает тесты.
+ */
+public class DurationRecorder implements TestExecutionListener {
+    private static final String dir = System.getProperty("test.durations.dir");
+
+    private final Map<String, Long> started = new ConcurrentHashMap<>();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    @Override
+    public void executionStarted(TestIdentifier identifier) {
+        if (identifier.isTest()) {
+            started.put(identifier.getUniqueId(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier identifier, TestExecutionResult result) {
+        Long start = started.remove(identifier.getUniqueId());
+        if (start == null || identifier.getSource().isEmpty()
+                || !(identifier.getSource().get() instanceof MethodSource)) {
+            return;
+        }
+        MethodSource source = (MethodSource) identifier.getSource().get();
+        durations.merge(source.getClassName() + "." + source.getMethodName(), System.nanoTime() - start, Long::sum);
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (dir == null || durations.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(dir, "durations-" + ProcessHandle.current().pid() + ".properties");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : new TreeMap<>(durations).entrySet()) {
+                    writer.write(String.format(Locale.ROOT, "%s=%.3f%n", entry.getKey(), entry.getValue() / 1e9));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.netology.web.shard;
+
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Оставляет в прогоне только тестовые методы шарда test.shard=i/N (шарды нумеруются с 1).
+ * Раскладку строит ShardPlan по всему найденному набору тестов и длительностям из файла test.durations.
+ * Без test.shard фильтр ничего не исключает.
+ */
+public class ShardFilter implements PostDiscoveryFilter {
+    private static final String spec = System.getProperty("test.shard", "");
+    private static final String durations = System.getProperty("test.durations");
+
+    private TestDescriptor root;
+    private ShardPlan plan;
+
+    @Override
+    public synchronized FilterResult apply(TestDescriptor descriptor) {
+        String test = key(descriptor);
+        if (spec.isBlank() || test == null) {
+            return FilterResult.included("Шардирование выключено");
+        }
+        String[] parts = spec.split("/");
+        int index = Integer.parseInt(parts[0].trim()) - 1;
+        int count = Integer.parseInt(parts[1].trim());
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Неверный шард test.shard=" + spec);
+        }
+        TestDescriptor top = rootOf(descriptor);
+        if (top != root) {
+            root = top;
+            List<String> tests = top.getDescendants().stream()
+                    .map(ShardFilter::key)
+                    .filter(key -> key != null)
+                    .distinct()
+                    .collect(Collectors.toList());
+            plan = new ShardPlan(tests, ShardPlan.loadDurations(durations == null ? null : Paths.get(durations)), count);
+        }
+        int shard = plan.shardOf(test);
+        return shard == index
+                ? FilterResult.included("Шард " + spec)
+                : FilterResult.excluded("Тест в шарде " + (shard + 1) + "/" + count);
+    }
+
+    private static String key(TestDescriptor descriptor) {
+        if (!descriptor.getChildren().isEmpty() || descriptor.getSource().isEmpty()
+                || !(descriptor.getSource().get() instanceof MethodSource)) {
+            return null;
+        }
+        MethodSource source = (MethodSource) descriptor.getSource().get();
+        return source.getClassName() + "." + source.getMethodName();
+    }
+
+    private static TestDescriptor rootOf(TestDescriptor descriptor) {
+        TestDescriptor current = descriptor;
+        while (current.getParent().isPresent()) {
+            current = current.getParent().get();
+        }
+        return current;
+    }
+}
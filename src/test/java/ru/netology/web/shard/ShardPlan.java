@@ -0,0 +1,83 @@
+package ru.netology.web.shard;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Раскладка тестов по шардам по длительностям прошлых прогонов: тесты берутся от самого долгого
+ * к самому короткому и каждый кладется в наименее загруженный шард (LPT). Для тестов без истории
+ * берется медиана известных длительностей. Раскладка зависит только от набора тестов и длительностей,
+ * поэтому все шарды независимо получают одну и ту же.
+ */
+public class ShardPlan {
+    private static final double DEFAULT_SECONDS = 1.0;
+
+    private final Map<String, Integer> shardOf = new HashMap<>();
+    private final double[] loads;
+
+    public ShardPlan(Collection<String> tests, Map<String, Double> durations, int shards) {
+        loads = new double[shards];
+        double fallback = median(durations.values());
+        List<String> ordered = new ArrayList<>(tests);
+        Map<String, Double> weights = new HashMap<>();
+        for (String test : ordered) {
+            weights.put(test, durations.getOrDefault(test, fallback));
+        }
+        ordered.sort(Comparator.comparing((String test) -> weights.get(test)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        for (String test : ordered) {
+            int lightest = 0;
+            for (int i = 1; i < shards; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            shardOf.put(test, lightest);
+            loads[lightest] += weights.get(test);
+        }
+    }
+
+    public int shardOf(String test) {
+        return shardOf.get(test);
+    }
+
+    public double[] getLoads() {
+        return loads.clone();
+    }
+
+    public static Map<String, Double> loadDurations(Path file) {
+        Map<String, Double> durations = new HashMap<>();
+        if (file == null || !Files.exists(file)) {
+            return durations;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        properties.stringPropertyNames().forEach(test -> durations.put(test,
+                Double.parseDouble(properties.getProperty(test))));
+        return durations;
+    }
+
+    private static double median(Collection<Double> values) {
+        if (values.isEmpty()) {
+            return DEFAULT_SECONDS;
+        }
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.naturalOrder());
+        return sorted.get(sorted.size() / 2);
+    }
+}
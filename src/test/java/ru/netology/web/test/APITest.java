@@ -0,0 +1,107 @@
+package ru.netology.web.test;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.netology.web.data.APIHelper;
+import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.DataSeedExtension;
+import ru.netology.web.data.DatabaseReset;
+import ru.netology.web.data.PurchaseScope;
+import ru.netology.web.data.SQLHelper;
+import ru.netology.web.report.TimingExtension;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith({DataSeedExtension.class, TimingExtension.class})
+public class APITest {
+    private PurchaseScope scope;
+
+    @BeforeAll
+    static void setUpAll() {
+        DatabaseReset.prepare();
+    }
+
+    @AfterEach
+    public void cleanData() {
+        DatabaseReset.reset(scope);
+    }
+
+    @Test
+    @DisplayName("API debit card payment with the APPROVED status")
+    void shouldSuccessPayByApprovedDebitCard() {
+        String status = "APPROVED";
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        scope = PurchaseScope.open(card);
+        APIHelper.PurchaseResponse response = APIHelper.pay(card);
+
+        SQLHelper.PaymentEntity payment = scope.awaitPayment();
+        SQLHelper.OrderEntity order = scope.awaitOrderFor(payment);
+        assertAll(() -> assertEquals(200, response.getStatusCode()),
+                () -> assertEquals(status, payment.getStatus()),
+                () -> assertEquals(payment.getTransaction_id(), order.getPayment_id()));
+    }
+
+    @Test
+    @DisplayName("API debit card payment with the DECLINED status")
+    void shouldCancelPayByDeclinedDebitCard() {
+        String status = "DECLINED";
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        scope = PurchaseScope.open(card);
+        APIHelper.pay(card);
+
+        assertEquals(status, scope.awaitPayment().getStatus());
+    }
+
+    @Test
+    @DisplayName("API debit card payment with the INVALID status")
+    void shouldCancelPayByInvalidDebitCard() {
+        DataHelper.CardInfo card = DataHelper.generateValidCard("INVALID");
+        scope = PurchaseScope.open(card);
+        APIHelper.PurchaseResponse response = APIHelper.pay(card);
+
+        assertAll(() -> assertNotEquals(200, response.getStatusCode()),
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findPayment(), "Таблица payment_entity не пустая"));
+    }
+
+    @Test
+    @DisplayName("API credit card payment with the APPROVED status")
+    void shouldSuccessPayByApprovedCreditCard() {
+        String status = "APPROVED";
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        scope = PurchaseScope.open(card);
+        APIHelper.PurchaseResponse response = APIHelper.payInCredit(card);
+
+        SQLHelper.CreditRequestEntity credit = scope.awaitCredit();
+        SQLHelper.OrderEntity order = scope.awaitOrderFor(credit);
+        assertAll(() -> assertEquals(200, response.getStatusCode()),
+                () -> assertEquals(status, credit.getStatus()),
+                () -> assertEquals(credit.getBank_id(), order.getPayment_id()));
+    }
+
+    @Test
+    @DisplayName("API credit card payment with the DECLINED status")
+    void shouldCancelPayByDeclinedCreditCard() {
+        String status = "DECLINED";
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        scope = PurchaseScope.open(card);
+        APIHelper.payInCredit(card);
+
+        assertEquals(status, scope.awaitCredit().getStatus());
+    }
+
+    @Test
+    @DisplayName("API credit card payment with the INVALID status")
+    void shouldCancelPayByInvalidCreditCard() {
+        DataHelper.CardInfo card = DataHelper.generateValidCard("INVALID");
+        scope = PurchaseScope.open(card);
+        APIHelper.PurchaseResponse response = APIHelper.payInCredit(card);
+
+        assertAll(() -> assertNotEquals(200, response.getStatusCode()),
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findCredit(), "Таблица credit_request_entity не пустая"));
+    }
+}
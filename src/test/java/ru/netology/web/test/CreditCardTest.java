@@ -1,42 +1,47 @@
 package ru.netology.web.test;
 
 import com.codeborne.selenide.logevents.SelenideLogger;
+import io.qameta.allure.Allure;
 import io.qameta.allure.selenide.AllureSelenide;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.DataSeedExtension;
+import ru.netology.web.data.DatabaseReset;
+import ru.netology.web.data.PurchaseScope;
 import ru.netology.web.data.SQLHelper;
+import ru.netology.web.page.BrowserSession;
 import ru.netology.web.page.TravelPurchasePage;
+import ru.netology.web.report.TimingExtension;
 
 
-import static com.codeborne.selenide.Selenide.open;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertAll;
-import static ru.netology.web.data.SQLHelper.cleanDatabase;
 
+@ExtendWith({DataSeedExtension.class, TimingExtension.class})
 public class CreditCardTest {
-    private static SQLHelper.CreditRequestEntity credit;
-    private static SQLHelper.OrderEntity order;
     private static String url = System.getProperty("app.url");
+    private PurchaseScope scope;
 
     @BeforeAll
     static void setUpAll() {
-        SelenideLogger.addListener("allure", new AllureSelenide());
-    }
-
-    @AfterAll
-    static void tearDownAll() {
-        SelenideLogger.removeListener("allure");
+        DatabaseReset.prepare();
     }
 
     @BeforeEach
     void setup() {
-        open(url);
+        SelenideLogger.addListener("allure", new AllureSelenide());
+        boolean reused = BrowserSession.open(url);
+        Allure.addAttachment("Browser session", reused ? "reused" : "loaded");
     }
 
     @AfterEach
     public void cleanData() {
-        cleanDatabase();
+        SelenideLogger.removeListener("allure");
+        long resetMillis = DatabaseReset.reset(scope);
+        Allure.addAttachment("DB reset", DatabaseReset.getStrategy() + ": " + resetMillis + " ms");
+        Allure.addAttachment("DB pool stats", SQLHelper.getPoolStats().toString());
     }
 
     @Test
@@ -46,16 +51,14 @@ public class CreditCardTest {
         String status = "APPROVED";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buyInCredit();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
-        page.waitNotificationOk();
 
-        credit = SQLHelper.getCreditRequestEntity();
-        order = SQLHelper.getOrderEntity();
+        SQLHelper.CreditRequestEntity credit = scope.awaitCredit();
+        SQLHelper.OrderEntity order = scope.awaitOrderFor(credit);
+        page.waitNotificationOk();
         assertAll(() -> assertEquals(status, credit.getStatus()),
                 () -> assertEquals(credit.getBank_id(), order.getPayment_id()),
                 () -> assertEquals(credit.getId(), order.getCredit_id()));
@@ -68,15 +71,13 @@ public class CreditCardTest {
         String status = "DECLINED";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buyInCredit();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
 
-                () -> assertEquals(status, SQLHelper.getCreditRequestEntity().getStatus()));
+                () -> assertEquals(status, scope.awaitCredit().getStatus()));
     }
 
     @Test
@@ -98,15 +99,13 @@ public class CreditCardTest {
         String status = "INVALID";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buyInCredit();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
-                () -> assertNull(SQLHelper.getOrderEntity(), "Таблица order_entity не пустая"),
-                () -> assertNull(SQLHelper.getCreditRequestEntity(), "Таблица credit_request_entity не пустая"));
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findCredit(), "Таблица credit_request_entity не пустая"));
     }
 
     @Test
@@ -115,18 +114,17 @@ public class CreditCardTest {
         String status = "ZERO";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buyInCredit();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
-                () -> assertNull(SQLHelper.getOrderEntity(), "Таблица order_entity не пустая"),
-                () -> assertNull(SQLHelper.getCreditRequestEntity(), "Таблица credit_request_entity не пустая"));
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findCredit(), "Таблица credit_request_entity не пустая"));
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with the FIFTEEN status")
     void shouldCancelPayByFifteenDigCreditCard() {
         String status = "FIFTEEN";
@@ -142,6 +140,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with zero month")
     void shouldErrorZeroMonthCredit() {
         String status = "APPROVED";
@@ -158,6 +157,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment exceeding range the month field")
     void shouldErrorOverMonthCredit() {
         String status = "APPROVED";
@@ -173,6 +173,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with one digit in month field")
     void shouldErrorOneDigitMonthCredit() {
         String status = "APPROVED";
@@ -189,6 +190,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with zero year field")
     void shouldErrorZeroYearCredit() {
         String status = "APPROVED";
@@ -204,6 +206,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with exceeding range the year field")
     void shouldErrorOverYearCredit() {
         String status = "APPROVED";
@@ -219,6 +222,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with previous year")
     void shouldErrorLessYearCredit() {
         String status = "APPROVED";
@@ -234,6 +238,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with cyrillic name field")
     void shouldErrorCyrillicNameCredit() {
         String status = "APPROVED";
@@ -249,6 +254,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with numeric name field")
     void shouldErrorNumericNameCredit() {
         String status = "APPROVED";
@@ -264,6 +270,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with one symbol name field")
     void shouldErrorOneSymbolNameCredit() {
         String status = "APPROVED";
@@ -279,6 +286,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with special characters name field")
     void shouldErrorSpecCharNameCredit() {
         String status = "APPROVED";
@@ -294,6 +302,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with two digits in CVC field")
     void shouldErrorTwoDigCVCForPaymentCredit() {
         String status = "APPROVED";
@@ -309,6 +318,7 @@ public class CreditCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Credit card payment with one digit in CVC field")
     void shouldErrorOneDigCVCForPaymentCredit() {
         String status = "APPROVED";
@@ -1,42 +1,47 @@
 package ru.netology.web.test;
 
 import com.codeborne.selenide.logevents.SelenideLogger;
+import io.qameta.allure.Allure;
 import io.qameta.allure.selenide.AllureSelenide;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
 import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.DataSeedExtension;
+import ru.netology.web.data.DatabaseReset;
+import ru.netology.web.data.PurchaseScope;
 import ru.netology.web.data.SQLHelper;
+import ru.netology.web.page.BrowserSession;
 import ru.netology.web.page.TravelPurchasePage;
+import ru.netology.web.report.TimingExtension;
 
 
-import static com.codeborne.selenide.Selenide.open;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertAll;
-import static ru.netology.web.data.SQLHelper.cleanDatabase;
 
+@ExtendWith({DataSeedExtension.class, TimingExtension.class})
 public class DebitCardTest {
-    private static SQLHelper.PaymentEntity payment;
-    private static SQLHelper.OrderEntity order;
     private static String url = System.getProperty("app.url");
+    private PurchaseScope scope;
 
     @BeforeAll
     static void setUpAll() {
-        SelenideLogger.addListener("allure", new AllureSelenide());
-    }
-
-    @AfterAll
-    static void tearDownAll() {
-        SelenideLogger.removeListener("allure");
+        DatabaseReset.prepare();
     }
 
     @BeforeEach
     void setup() {
-        open(url);
+        SelenideLogger.addListener("allure", new AllureSelenide());
+        boolean reused = BrowserSession.open(url);
+        Allure.addAttachment("Browser session", reused ? "reused" : "loaded");
     }
 
     @AfterEach
     public void cleanData() {
-        cleanDatabase();
+        SelenideLogger.removeListener("allure");
+        long resetMillis = DatabaseReset.reset(scope);
+        Allure.addAttachment("DB reset", DatabaseReset.getStrategy() + ": " + resetMillis + " ms");
+        Allure.addAttachment("DB pool stats", SQLHelper.getPoolStats().toString());
     }
 
     @Test
@@ -47,16 +52,14 @@ public class DebitCardTest {
         TravelPurchasePage page = new TravelPurchasePage();
         int price = page.getPriceInKops();
         page.buy();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
-        page.waitNotificationOk();
 
-        payment = SQLHelper.getPaymentEntity();
-        order = SQLHelper.getOrderEntity();
+        SQLHelper.PaymentEntity payment = scope.awaitPayment();
+        SQLHelper.OrderEntity order = scope.awaitOrderFor(payment);
+        page.waitNotificationOk();
         assertAll(() -> assertEquals(status, payment.getStatus()),
                 () -> assertEquals(price, payment.getAmount()),
                 () -> assertEquals(payment.getTransaction_id(), order.getPayment_id()));
@@ -69,15 +72,13 @@ public class DebitCardTest {
         String status = "DECLINED";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buy();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
 
-                () -> assertEquals(status, SQLHelper.getPaymentEntity().getStatus()));
+                () -> assertEquals(status, scope.awaitPayment().getStatus()));
     }
 
     @Test
@@ -99,15 +100,13 @@ public class DebitCardTest {
         String status = "INVALID";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buy();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
-                () -> assertNull(SQLHelper.getOrderEntity(), "Таблица order_entity не пустая"),
-                () -> assertNull(SQLHelper.getPaymentEntity(), "Таблица payment_entity не пустая"));
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findPayment(), "Таблица payment_entity не пустая"));
     }
 
     @Test
@@ -116,18 +115,17 @@ public class DebitCardTest {
         String status = "ZERO";
         TravelPurchasePage page = new TravelPurchasePage();
         page.buy();
-        page.inputNumberCard(status);
-        page.inputMonth(DataHelper.generateMonthPlus(0));
-        page.inputYear(DataHelper.generateYearPlus(1));
-        page.inputOwner(DataHelper.generateHolder());
-        page.inputCVC(3);
+        DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+        page.fillForm(card);
+        scope = PurchaseScope.open(card);
         page.clickContinue();
         assertAll(() -> page.waitNotificationError(),
-                () -> assertNull(SQLHelper.getOrderEntity(), "Таблица order_entity не пустая"),
-                () -> assertNull(SQLHelper.getPaymentEntity(), "Таблица payment_entity не пустая"));
+                () -> assertNull(scope.findOrder(), "Таблица order_entity не пустая"),
+                () -> assertNull(scope.findPayment(), "Таблица payment_entity не пустая"));
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with the FIFTEEN status")
     void shouldCancelPayByFifteenDigDebitCard() {
         String status = "FIFTEEN";
@@ -143,6 +141,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with zero month")
     void shouldErrorZeroMonthDebit() {
         String status = "APPROVED";
@@ -159,6 +158,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment exceeding range the month field")
     void shouldErrorOverMonthDebit() {
         String status = "APPROVED";
@@ -174,6 +174,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with one digit in month field")
     void shouldErrorOneDigitMonthDebit() {
         String status = "APPROVED";
@@ -190,6 +191,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with zero year field")
     void shouldErrorZeroYearDebit() {
         String status = "APPROVED";
@@ -205,6 +207,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with exceeding range the year field")
     void shouldErrorOverYearDebit() {
         String status = "APPROVED";
@@ -220,6 +223,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with previous year")
     void shouldErrorLessYearDebit() {
         String status = "APPROVED";
@@ -235,6 +239,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with cyrillic name field")
     void shouldErrorCyrillicNameDebit() {
         String status = "APPROVED";
@@ -250,6 +255,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with numeric name field")
     void shouldErrorNumericNameDebit() {
         String status = "APPROVED";
@@ -265,6 +271,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with one symbol name field")
     void shouldErrorOneSymbolNameDebit() {
         String status = "APPROVED";
@@ -280,6 +287,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with special characters name field")
     void shouldErrorSpecCharNameDebit() {
         String status = "APPROVED";
@@ -295,6 +303,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with two digits in CVC field")
     void shouldErrorTwoDigCVCForPaymentDebit() {
         String status = "APPROVED";
@@ -310,6 +319,7 @@ public class DebitCardTest {
     }
 
     @Test
+    @Tag("field-validation")
     @DisplayName("Debit card payment with one digit in CVC field")
     void shouldErrorOneDigCVCForPaymentDebit() {
         String status = "APPROVED";
@@ -0,0 +1,86 @@
+package ru.netology.web.test;
+
+import com.codeborne.selenide.logevents.SelenideLogger;
+import io.qameta.allure.Allure;
+import io.qameta.allure.selenide.AllureSelenide;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.DataSeedExtension;
+import ru.netology.web.data.DatabaseReset;
+import ru.netology.web.data.FormModel;
+import ru.netology.web.data.PurchaseScope;
+import ru.netology.web.data.SQLHelper;
+import ru.netology.web.page.BrowserSession;
+import ru.netology.web.page.TravelPurchasePage;
+import ru.netology.web.report.TimingExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@ExtendWith({DataSeedExtension.class, TimingExtension.class})
+public class FormValidationTest {
+    private static final int strength = Integer.getInteger("form.strength", 2);
+    private static String url = System.getProperty("app.url");
+    private PurchaseScope scope;
+
+    static List<FormModel.Scenario> scenarios() {
+        return FormModel.scenarios(strength);
+    }
+
+    @BeforeAll
+    static void setUpAll() {
+        DatabaseReset.prepare();
+    }
+
+    @BeforeEach
+    void setup() {
+        SelenideLogger.addListener("allure", new AllureSelenide());
+        boolean reused = BrowserSession.open(url);
+        Allure.addAttachment("Browser session", reused ? "reused" : "loaded");
+    }
+
+    @AfterEach
+    public void cleanData() {
+        SelenideLogger.removeListener("allure");
+        long resetMillis = DatabaseReset.reset(scope);
+        Allure.addAttachment("DB reset", DatabaseReset.getStrategy() + ": " + resetMillis + " ms");
+        Allure.addAttachment("DB pool stats", SQLHelper.getPoolStats().toString());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("scenarios")
+    @DisplayName("Form validation on a covering set of field classes")
+    void shouldValidateFormFields(FormModel.Scenario scenario) {
+        TravelPurchasePage page = new TravelPurchasePage();
+        if (scenario.isCredit()) {
+            page.buyInCredit();
+        } else {
+            page.buy();
+        }
+        DataHelper.CardInfo card = scenario.toCard();
+        page.fillForm(card, false);
+        if (scenario.isValid()) {
+            scope = PurchaseScope.open(card);
+            page.clickContinue();
+            if ("APPROVED".equals(scenario.getChoice(FormModel.NUMBER).getName())) {
+                page.waitNotificationOk();
+            } else {
+                page.waitNotificationError();
+            }
+            return;
+        }
+        page.clickContinue();
+        assertAll(scenario.getChoices().stream().map(choice -> (Executable) () -> {
+            if (choice.isValid()) {
+                page.shouldHaveNoFieldError(choice.getField());
+            } else {
+                page.waitNotificationMessage(choice.getField(), choice.getError());
+            }
+        }));
+    }
+}
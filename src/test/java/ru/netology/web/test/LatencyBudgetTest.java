@@ -0,0 +1,121 @@
+package ru.netology.web.test;
+
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import ru.netology.web.data.APIHelper;
+import ru.netology.web.data.DataHelper;
+import ru.netology.web.data.DataSeedExtension;
+import ru.netology.web.data.PurchaseScope;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("latency")
+@ExtendWith(DataSeedExtension.class)
+public class LatencyBudgetTest {
+    private static final int iterations = Integer.getInteger("latency.iterations", 20);
+    private static final int warmup = Integer.getInteger("latency.warmup", 3);
+    private static final double budget = Double.parseDouble(System.getProperty("latency.budget", "1.2"));
+    private static final boolean failOnBreach = !"warn".equals(System.getProperty("latency.gate", "fail"));
+    private static final boolean record = Boolean.getBoolean("latency.record");
+    private static final Path outDir = Paths.get(System.getProperty("latency.dir", "build/latency"));
+    private static final Properties baseline = new Properties();
+    private static final Properties measured = new Properties();
+
+    @BeforeAll
+    static void loadBaseline() throws IOException {
+        try (InputStream in = LatencyBudgetTest.class.getResourceAsStream("/latency-baseline.properties")) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        }
+    }
+
+    @AfterAll
+    static void saveMeasured() throws IOException {
+        Files.createDirectories(outDir);
+        String name = record ? "latency-baseline.properties" : "latency-results.properties";
+        try (OutputStream out = Files.newOutputStream(outDir.resolve(name))) {
+            measured.store(out, "Задержки покупки через API, мс");
+        }
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource({"pay, APPROVED", "pay, DECLINED", "credit, APPROVED", "credit, DECLINED"})
+    @DisplayName("Purchase round-trip latency within the budget")
+    void shouldKeepPurchaseLatencyWithinBudget(String endpoint, String status) {
+        String key = endpoint + "." + status;
+        if (!record) {
+            requireBaseline(key + ".p50");
+            requireBaseline(key + ".p95");
+        }
+        long[] latencies = new long[iterations];
+        for (int i = -warmup; i < iterations; i++) {
+            DataHelper.CardInfo card = DataHelper.generateValidCard(status);
+            PurchaseScope scope = PurchaseScope.open(card);
+            try {
+                APIHelper.PurchaseResponse response = endpoint.equals("pay")
+                        ? APIHelper.pay(card) : APIHelper.payInCredit(card);
+                assertEquals(200, response.getStatusCode(), "Ответ " + response.getEndpoint());
+                if (i >= 0) {
+                    latencies[i] = response.getLatencyNanos();
+                }
+            } finally {
+                scope.close();
+            }
+        }
+        Arrays.sort(latencies);
+        long p50 = percentileMillis(latencies, 50);
+        long p95 = percentileMillis(latencies, 95);
+        measured.setProperty(key + ".p50", String.valueOf(p50));
+        measured.setProperty(key + ".p95", String.valueOf(p95));
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%s: p50=%d ms, p95=%d ms, iterations=%d, budget=x%.2f%n", key, p50, p95, iterations, budget));
+        boolean breached = breach(report, key + ".p50", p50) | breach(report, key + ".p95", p95);
+        Allure.addAttachment("Latency", report.toString());
+        if (!breached || record) {
+            return;
+        }
+        if (failOnBreach) {
+            Assertions.fail(report.toString());
+        }
+        Allure.label("tag", "degraded");
+    }
+
+    private static void requireBaseline(String key) {
+        if (baseline.getProperty(key) == null) {
+            Assertions.fail("Нет базового значения " + key + " в latency-baseline.properties: без него контроль"
+                    + " задержки ничего не проверяет. Запишите его на эталонном стенде с -Dlatency.record=true");
+        }
+    }
+
+    private static boolean breach(StringBuilder report, String key, long actual) {
+        if (record) {
+            return false;
+        }
+        String value = baseline.getProperty(key);
+        long limit = (long) (Long.parseLong(value) * budget);
+        boolean breached = actual > limit;
+        report.append(String.format(Locale.ROOT, "%s: %d ms, базовое %s ms, предел %d ms%s%n",
+                key, actual, value, limit, breached ? " — ПРЕВЫШЕН" : ""));
+        return breached;
+    }
+
+    private static long percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+}